@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Load test for comparing the default gRPC executor with the virtual-thread executor.
+#
+# Start the service once with GRPC_SERVER_VIRTUAL_THREADS=false and once with
+# GRPC_SERVER_VIRTUAL_THREADS=true (GRPC_SERVER_MAX_CONCURRENT_CALLS set to roughly the Hikari
+# pool size), run this script against each with the matching mode argument, then compare the
+# summary lines it prints. Both runs need the shedding layers and response caches switched off,
+# otherwise the calls are rejected or answered from memory instead of waiting on the database:
+#
+#   GRPC_SERVER_RATE_LIMIT_ENABLED=false
+#   GRPC_SERVER_LOAD_SHEDDING_ENABLED=false
+#   CASHPILOT_CACHE_USERPROFILE_ENABLED=false
+#   CASHPILOT_CACHE_ACCOUNTLIST_ENABLED=false
+#
+# TOKENS_FILE holds one bearer token per line, each for a different user that has a profile and
+# accounts. ghz sends them round-robin, so concurrent calls do not collapse into one query per
+# user in the single-flight path.
+#
+# Usage: TOKENS_FILE=<file> ./loadtest/ghz-executor-comparison.sh <platform|virtual>
+# Needs ghz with metadata-array support and jq.
+
+set -euo pipefail
+
+MODE=${1:?usage: $0 <platform|virtual>}
+HOST=${GRPC_HOST:-localhost:9090}
+TOKENS_FILE=${TOKENS_FILE:?TOKENS_FILE must list bearer tokens of users that have a profile, one per line}
+PROTOSET=${PROTOSET:-build/generated/source/proto/main/descriptor_set.desc}
+OUT=${OUT:-build/loadtest}
+DURATION=${DURATION:-60s}
+PAGE_SIZE=${PAGE_SIZE:-50}
+
+mkdir -p "$OUT"
+METADATA="$OUT/metadata.json"
+jq -R -s 'split("\n") | map(select(length > 0) | {authorization: ("Bearer " + .)})' "$TOKENS_FILE" > "$METADATA"
+
+run() {
+  local name=$1 call=$2 data=$3 concurrency=$4
+  local report="$OUT/$name-$MODE-c$concurrency.json"
+  ghz --insecure \
+      --protoset "$PROTOSET" \
+      --call "$call" \
+      --data "$data" \
+      --metadata-file "$METADATA" \
+      --concurrency "$concurrency" \
+      --connections 50 \
+      --duration "$DURATION" \
+      --format json \
+      --output "$report" \
+      "$HOST"
+  jq -r --arg name "$name-$MODE-c$concurrency" \
+      '"\($name): rps=\(.rps | floor) avg=\(.average / 1e6)ms p99=\((.latencyDistribution[] | select(.percentage == 99) | .latency) / 1e6)ms statuses=\(.statusCodeDistribution | tostring)"' \
+      "$report"
+}
+
+for concurrency in 1000 5000; do
+  # A keyset page bypasses the account-list cache and always reads the database
+  run list-accounts-page com.cashpilot.account.AccountService.ListAccounts "{\"page_size\":$PAGE_SIZE}" "$concurrency"
+  run get-user-profile UserProfileService.GetUserProfile '{}' "$concurrency"
+done
+
+echo "Reports written to $OUT"
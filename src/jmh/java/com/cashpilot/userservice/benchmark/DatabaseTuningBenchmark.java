@@ -0,0 +1,301 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.account.proto.AccountServiceGrpc;
+import com.cashpilot.account.proto.BankNameProto;
+import com.cashpilot.account.proto.BatchGetAccountsRequest;
+import com.cashpilot.account.proto.BatchGetAccountsResponse;
+import com.cashpilot.account.proto.CreateAccountRequest;
+import com.cashpilot.account.proto.CreateAccountResult;
+import com.cashpilot.account.proto.CreateAccountsRequest;
+import com.cashpilot.account.proto.CreateAccountsResponse;
+import com.cashpilot.account.proto.DeleteAccountRequest;
+import com.cashpilot.account.proto.GetAccountRequest;
+import com.cashpilot.account.proto.ListAccountsRequest;
+import com.cashpilot.account.proto.ListAccountsResponse;
+import com.cashpilot.account.proto.StreamAccountsRequest;
+import com.cashpilot.account.proto.UpdateAccountRequest;
+import com.cashpilot.userservice.UserServiceCashpilotApplication;
+import com.cashpilot.userservice.entity.Account;
+import com.cashpilot.userservice.entity.UserProfile;
+import com.cashpilot.userservice.enums.AppTheme;
+import com.cashpilot.userservice.enums.BankName;
+import com.cashpilot.userservice.enums.Currency;
+import com.cashpilot.userservice.grpc.BatchGetUserProfilesRequest;
+import com.cashpilot.userservice.grpc.BatchGetUserProfilesResponse;
+import com.cashpilot.userservice.grpc.GetUserProfileRequest;
+import com.cashpilot.userservice.grpc.UpdateUserProfileRequest;
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.cashpilot.userservice.grpc.UserProfileResponseV2;
+import com.cashpilot.userservice.grpc.UserProfileServiceGrpc;
+import com.cashpilot.userservice.grpc.UserProfileServiceV2Grpc;
+import com.cashpilot.userservice.repository.AccountRepository;
+import com.cashpilot.userservice.repository.UserProfileRepository;
+import com.google.protobuf.FieldMask;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The account and profile RPCs against PostgreSQL in a container, with the datasource and Hibernate
+ * settings from application.yml. Each {@code reverted} value puts one of those settings back to its
+ * driver or Hibernate default, so the difference to {@code none} is what that setting buys. Caches
+ * are off so every call reaches the database. Needs a local Docker daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DatabaseTuningBenchmark {
+
+    private static final String READER_ID = "tuning-reader";
+    private static final String WRITER_ID = "tuning-writer";
+    private static final String IN_PROCESS_NAME = "user-service-tuning-benchmark";
+    private static final int BATCH_SIZE = 50;
+
+    private static final Map<String, List<String>> DEFAULTS = Map.of(
+            "none", List.of(),
+            "prepareThreshold", List.of("--spring.datasource.hikari.data-source-properties.prepareThreshold=5"),
+            "preparedStatementCache", List.of(
+                    "--spring.datasource.hikari.data-source-properties.preparedStatementCacheQueries=256",
+                    "--spring.datasource.hikari.data-source-properties.preparedStatementCacheSizeMiB=5"),
+            "reWriteBatchedInserts", List.of("--spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=false"),
+            "jdbcBatchSize", List.of("--spring.jpa.properties.hibernate.jdbc.batch_size=0"),
+            "defaultBatchFetchSize", List.of("--spring.jpa.properties.hibernate.default_batch_fetch_size=-1"),
+            "planCacheMaxSize", List.of("--spring.jpa.properties.hibernate.query.plan_cache_max_size=2048"),
+            "inClauseParameterPadding", List.of("--spring.jpa.properties.hibernate.query.in_clause_parameter_padding=false"));
+
+    @Param({"none", "prepareThreshold", "preparedStatementCache", "reWriteBatchedInserts", "jdbcBatchSize",
+            "defaultBatchFetchSize", "planCacheMaxSize", "inClauseParameterPadding"})
+    private String reverted;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private ManagedChannel readerChannel;
+    private ManagedChannel writerChannel;
+    private AccountServiceGrpc.AccountServiceBlockingStub readerAccountStub;
+    private AccountServiceGrpc.AccountServiceBlockingStub writerAccountStub;
+    private UserProfileServiceGrpc.UserProfileServiceBlockingStub readerProfileStub;
+    private UserProfileServiceV2Grpc.UserProfileServiceV2BlockingStub readerProfileV2Stub;
+    private UserProfileServiceGrpc.UserProfileServiceBlockingStub writerProfileStub;
+    private GetAccountRequest getAccountRequest;
+    private BatchGetAccountsRequest batchGetAccountsRequest;
+    private BatchGetUserProfilesRequest batchGetUserProfilesRequest;
+    private UpdateAccountRequest.Builder updateAccountRequest;
+    private int updates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+
+        List<String> args = new ArrayList<>(List.of(
+                "--DB_URL=" + postgres.getJdbcUrl(),
+                "--DB_USER=" + postgres.getUsername(),
+                "--DB_PASS=" + postgres.getPassword(),
+                "--spring.flyway.user=" + postgres.getUsername(),
+                "--spring.flyway.password=" + postgres.getPassword(),
+                "--SPRING_CLOUD_CONSUL_HOST=localhost",
+                "--SPRING_CLOUD_CONSUL_PORT=8500",
+                "--SERVER_PORT=0",
+                "--GRPC_SERVER_PORT=-1",
+                "--SPRING_SECURITY_OAUTH2_RESOURCESERVER_JWT_ISSUERURI=http://localhost/benchmark",
+                "--SPRING_JPA_HIBERNATE_DDLAUTO=none",
+                "--SPRING_JPA_SHOWSQL=false",
+                "--spring.cloud.consul.enabled=false",
+                "--grpc.server.in-process-name=" + IN_PROCESS_NAME,
+                "--cashpilot.cache.user-profile.enabled=false",
+                "--cashpilot.cache.account-list.enabled=false",
+                "--cashpilot.grpc.server.rate-limit.enabled=false",
+                "--cashpilot.change-feed.enabled=false",
+                "--logging.level.root=WARN"));
+        args.addAll(DEFAULTS.get(reverted));
+        context = new SpringApplicationBuilder(UserServiceCashpilotApplication.class, TuningSecurityConfig.class)
+                .run(args.toArray(String[]::new));
+
+        UserProfileRepository userProfileRepository = context.getBean(UserProfileRepository.class);
+        UserProfile reader = seedProfile(userProfileRepository, READER_ID);
+        seedProfile(userProfileRepository, WRITER_ID);
+        List<Account> accounts = seedAccounts(context.getBean(AccountRepository.class), reader);
+
+        BatchGetUserProfilesRequest.Builder profiles = BatchGetUserProfilesRequest.newBuilder().addUserIds(READER_ID);
+        for (int i = 1; i < BATCH_SIZE; i++) {
+            profiles.addUserIds(seedProfile(userProfileRepository, "tuning-user-" + i).getUserId());
+        }
+        batchGetUserProfilesRequest = profiles.build();
+        String accountId = accounts.getFirst().getAccountId().toString();
+        getAccountRequest = GetAccountRequest.newBuilder().setAccountId(accountId).build();
+        batchGetAccountsRequest = BatchGetAccountsRequest.newBuilder()
+                .addAllAccountIds(accounts.stream().map(account -> account.getAccountId().toString()).toList())
+                .build();
+        updateAccountRequest = UpdateAccountRequest.newBuilder().setAccountId(accountId);
+
+        readerChannel = channel(READER_ID);
+        writerChannel = channel(WRITER_ID);
+        readerAccountStub = AccountServiceGrpc.newBlockingStub(readerChannel);
+        readerProfileStub = UserProfileServiceGrpc.newBlockingStub(readerChannel);
+        readerProfileV2Stub = UserProfileServiceV2Grpc.newBlockingStub(readerChannel);
+        writerAccountStub = AccountServiceGrpc.newBlockingStub(writerChannel);
+        writerProfileStub = UserProfileServiceGrpc.newBlockingStub(writerChannel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        readerChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        writerChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void createAndDeleteAccounts(Blackhole blackhole) {
+        CreateAccountsResponse created = writerAccountStub.createAccounts(CreateAccountsRequest.newBuilder()
+                .addAccounts(createAccountRequest(BankNameProto.KASPI))
+                .addAccounts(createAccountRequest(BankNameProto.HALYK))
+                .build());
+        for (CreateAccountResult result : created.getResultsList()) {
+            blackhole.consume(writerAccountStub.deleteAccount(DeleteAccountRequest.newBuilder()
+                    .setAccountId(result.getAccount().getAccountId())
+                    .build()));
+        }
+    }
+
+    @Benchmark
+    public AccountProto getAccount() {
+        return readerAccountStub.getAccount(getAccountRequest);
+    }
+
+    @Benchmark
+    public BatchGetAccountsResponse batchGetAccounts() {
+        return readerAccountStub.batchGetAccounts(batchGetAccountsRequest);
+    }
+
+    @Benchmark
+    public ListAccountsResponse listAccounts() {
+        return readerAccountStub.listAccounts(ListAccountsRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public void streamAccounts(Blackhole blackhole) {
+        readerAccountStub.streamAccounts(StreamAccountsRequest.getDefaultInstance()).forEachRemaining(blackhole::consume);
+    }
+
+    @Benchmark
+    public AccountProto updateAccount() {
+        return readerAccountStub.updateAccount(updateAccountRequest.setAccountName("Main " + (updates++ % 10)).build());
+    }
+
+    @Benchmark
+    public UserProfileResponse getUserProfile() {
+        return readerProfileStub.getUserProfile(GetUserProfileRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public UserProfileResponseV2 getUserProfileV2() {
+        return readerProfileV2Stub.getUserProfile(GetUserProfileRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public BatchGetUserProfilesResponse batchGetUserProfiles() {
+        return readerProfileStub.batchGetUserProfiles(batchGetUserProfilesRequest);
+    }
+
+    @Benchmark
+    public UserProfileResponse updateUserProfile() {
+        return writerProfileStub.updateUserProfile(UpdateUserProfileRequest.newBuilder()
+                .setTimezone(updates++ % 2 == 0 ? "Asia/Almaty" : "Europe/Moscow")
+                .setUpdateMask(FieldMask.newBuilder().addPaths("timezone"))
+                .build());
+    }
+
+
+    private static ManagedChannel channel(String userId) {
+        Metadata headers = new Metadata();
+        headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer " + userId);
+        return InProcessChannelBuilder.forName(IN_PROCESS_NAME)
+                .intercept(MetadataUtils.newAttachHeadersInterceptor(headers))
+                .build();
+    }
+
+    private static CreateAccountRequest createAccountRequest(BankNameProto bankName) {
+        return CreateAccountRequest.newBuilder()
+                .setBankName(bankName)
+                .setAccountName(bankName.name() + " main")
+                .setCurrency("KZT")
+                .build();
+    }
+
+    private static UserProfile seedProfile(UserProfileRepository userProfileRepository, String userId) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setDefaultCurrency("KZT");
+        profile.setTimezone("Asia/Almaty");
+        profile.setLanguage("ru");
+        profile.setTheme(AppTheme.SYSTEM);
+        profile.setBalanceVisibility(true);
+        return userProfileRepository.save(profile);
+    }
+
+    private static List<Account> seedAccounts(AccountRepository accountRepository, UserProfile profile) {
+        return Stream.of(BankName.values())
+                .map(bankName -> {
+                    Account account = new Account();
+                    account.setUserProfile(profile);
+                    account.setBankName(bankName);
+                    account.setAccountName(bankName.name() + " main");
+                    account.setCurrency(Currency.KZT);
+                    return accountRepository.save(account);
+                })
+                .toList();
+    }
+
+
+    // Субъект токена - сам токен, чтобы читатель и писатель были разными пользователями
+    @Configuration
+    static class TuningSecurityConfig {
+
+        @Bean
+        @Primary
+        JwtDecoder tuningJwtDecoder() {
+            return token -> Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject(token)
+                    .claim("scope", "internal")
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build();
+        }
+    }
+}
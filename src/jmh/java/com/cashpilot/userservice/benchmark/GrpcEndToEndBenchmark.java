@@ -0,0 +1,218 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.account.proto.AccountServiceGrpc;
+import com.cashpilot.account.proto.BankNameProto;
+import com.cashpilot.account.proto.CreateAccountRequest;
+import com.cashpilot.account.proto.GetAccountRequest;
+import com.cashpilot.account.proto.ListAccountsRequest;
+import com.cashpilot.account.proto.ListAccountsResponse;
+import com.cashpilot.userservice.UserServiceCashpilotApplication;
+import com.cashpilot.userservice.entity.Account;
+import com.cashpilot.userservice.entity.UserProfile;
+import com.cashpilot.userservice.enums.AppTheme;
+import com.cashpilot.userservice.enums.BankName;
+import com.cashpilot.userservice.enums.Currency;
+import com.cashpilot.userservice.grpc.GetUserProfileRequest;
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.cashpilot.userservice.grpc.UserProfileResponseV2;
+import com.cashpilot.userservice.grpc.UserProfileServiceGrpc;
+import com.cashpilot.userservice.grpc.UserProfileServiceV2Grpc;
+import com.cashpilot.userservice.repository.AccountRepository;
+import com.cashpilot.userservice.repository.UserProfileRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full in-process round trip: gRPC transport, security, service, repository and an in-memory H2
+ * database in PostgreSQL mode standing in for Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GrpcEndToEndBenchmark {
+
+    static final String USER_ID = "benchmark-user";
+    private static final String IN_PROCESS_NAME = "user-service-benchmark";
+    private static final CreateAccountRequest INVALID_CREATE_ACCOUNT_REQUEST = CreateAccountRequest.newBuilder()
+            .setBankName(BankNameProto.BANK_NAME_UNSPECIFIED)
+            .setCurrency("XXX")
+            .build();
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private ManagedChannel channel;
+    private UserProfileServiceGrpc.UserProfileServiceBlockingStub userProfileStub;
+    private UserProfileServiceV2Grpc.UserProfileServiceV2BlockingStub userProfileV2Stub;
+    private AccountServiceGrpc.AccountServiceBlockingStub accountStub;
+    private GetAccountRequest getAccountRequest;
+    private GetUserProfileRequest getUserProfileNotModifiedRequest;
+    private ListAccountsRequest listAccountsNotModifiedRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserServiceCashpilotApplication.class, BenchmarkSecurityConfig.class)
+                .run(
+                        "--DB_URL=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--DB_USER=sa",
+                        "--DB_PASS=",
+                        "--SPRING_CLOUD_CONSUL_HOST=localhost",
+                        "--SPRING_CLOUD_CONSUL_PORT=8500",
+                        "--SERVER_PORT=0",
+                        "--GRPC_SERVER_PORT=-1",
+                        "--SPRING_SECURITY_OAUTH2_RESOURCESERVER_JWT_ISSUERURI=http://localhost/benchmark",
+                        "--SPRING_JPA_HIBERNATE_DDLAUTO=create-drop",
+                        "--SPRING_JPA_SHOWSQL=false",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.flyway.enabled=false",
+                        "--spring.cloud.consul.enabled=false",
+                        "--grpc.server.in-process-name=" + IN_PROCESS_NAME,
+                        "--cashpilot.cache.user-profile.enabled=" + cacheEnabled,
+                        "--cashpilot.cache.account-list.enabled=" + cacheEnabled,
+                        "--cashpilot.grpc.server.rate-limit.enabled=false",
+                        "--cashpilot.change-feed.enabled=false",
+                        "--logging.level.root=WARN"
+                );
+
+        UserProfile profile = seedProfile(context.getBean(UserProfileRepository.class));
+        Account account = seedAccounts(context.getBean(AccountRepository.class), profile);
+        getAccountRequest = GetAccountRequest.newBuilder().setAccountId(account.getAccountId().toString()).build();
+
+        Metadata headers = new Metadata();
+        headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer benchmark-token");
+        channel = InProcessChannelBuilder.forName(IN_PROCESS_NAME)
+                .intercept(MetadataUtils.newAttachHeadersInterceptor(headers))
+                .build();
+        userProfileStub = UserProfileServiceGrpc.newBlockingStub(channel);
+        userProfileV2Stub = UserProfileServiceV2Grpc.newBlockingStub(channel);
+        accountStub = AccountServiceGrpc.newBlockingStub(channel);
+
+        getUserProfileNotModifiedRequest = GetUserProfileRequest.newBuilder()
+                .setIfNoneMatch(getUserProfile().getEtag())
+                .build();
+        listAccountsNotModifiedRequest = ListAccountsRequest.newBuilder()
+                .setIfNoneMatch(listAccounts().getEtag())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    public UserProfileResponse getUserProfile() {
+        return userProfileStub.getUserProfile(GetUserProfileRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public UserProfileResponseV2 getUserProfileV2() {
+        return userProfileV2Stub.getUserProfile(GetUserProfileRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public UserProfileResponse getUserProfileNotModified() {
+        return userProfileStub.getUserProfile(getUserProfileNotModifiedRequest);
+    }
+
+    @Benchmark
+    public ListAccountsResponse listAccounts() {
+        return accountStub.listAccounts(ListAccountsRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public ListAccountsResponse listAccountsNotModified() {
+        return accountStub.listAccounts(listAccountsNotModifiedRequest);
+    }
+
+    @Benchmark
+    public AccountProto getAccount() {
+        return accountStub.getAccount(getAccountRequest);
+    }
+
+    @Benchmark
+    public Object createAccountRejected() {
+        try {
+            return accountStub.createAccount(INVALID_CREATE_ACCOUNT_REQUEST);
+        } catch (StatusRuntimeException e) {
+            return e.getStatus();
+        }
+    }
+
+
+    private static UserProfile seedProfile(UserProfileRepository userProfileRepository) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(USER_ID);
+        profile.setDefaultCurrency("KZT");
+        profile.setTimezone("Asia/Almaty");
+        profile.setLanguage("ru");
+        profile.setTheme(AppTheme.SYSTEM);
+        profile.setBalanceVisibility(true);
+        return userProfileRepository.save(profile);
+    }
+
+    private static Account seedAccounts(AccountRepository accountRepository, UserProfile profile) {
+        Account first = null;
+        for (BankName bankName : BankName.values()) {
+            Account account = new Account();
+            account.setUserProfile(profile);
+            account.setBankName(bankName);
+            account.setAccountName(bankName.name() + " main");
+            account.setCurrency(Currency.KZT);
+            Account saved = accountRepository.save(account);
+            if (first == null) {
+                first = saved;
+            }
+        }
+        return first;
+    }
+
+
+    @Configuration
+    static class BenchmarkSecurityConfig {
+
+        @Bean
+        @Primary
+        JwtDecoder benchmarkJwtDecoder() {
+            return token -> Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject(USER_ID)
+                    .claim("scope", "internal")
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build();
+        }
+    }
+}
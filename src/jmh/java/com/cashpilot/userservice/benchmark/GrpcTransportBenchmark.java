@@ -0,0 +1,180 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.account.proto.AccountServiceGrpc;
+import com.cashpilot.account.proto.ListAccountsRequest;
+import com.cashpilot.account.proto.ListAccountsResponse;
+import com.cashpilot.userservice.UserServiceCashpilotApplication;
+import com.cashpilot.userservice.entity.Account;
+import com.cashpilot.userservice.entity.UserProfile;
+import com.cashpilot.userservice.enums.AppTheme;
+import com.cashpilot.userservice.enums.BankName;
+import com.cashpilot.userservice.enums.Currency;
+import com.cashpilot.userservice.grpc.BatchGetUserProfilesRequest;
+import com.cashpilot.userservice.grpc.BatchGetUserProfilesResponse;
+import com.cashpilot.userservice.grpc.UserProfileServiceGrpc;
+import com.cashpilot.userservice.repository.AccountRepository;
+import com.cashpilot.userservice.repository.UserProfileRepository;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.stub.MetadataUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.server.event.GrpcServerStartedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same application as {@link GrpcEndToEndBenchmark}, but over the real Netty transport on a local
+ * port with the {@code loadtest} profile, so that sampled latencies include framing and
+ * compression. Response sizes per call are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(16)
+@Fork(1)
+public class GrpcTransportBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"true", "false"})
+    private boolean compressionEnabled;
+
+    @Param({"true", "false"})
+    private boolean epoll;
+
+    private ConfigurableApplicationContext context;
+    private ManagedChannel channel;
+    private AccountServiceGrpc.AccountServiceBlockingStub accountStub;
+    private UserProfileServiceGrpc.UserProfileServiceBlockingStub userProfileStub;
+    private BatchGetUserProfilesRequest batchGetUserProfilesRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ServerPortListener serverPort = new ServerPortListener();
+        context = new SpringApplicationBuilder(UserServiceCashpilotApplication.class,
+                GrpcEndToEndBenchmark.BenchmarkSecurityConfig.class)
+                .listeners(serverPort)
+                .profiles("loadtest")
+                .run(
+                        "--DB_URL=jdbc:h2:mem:transport-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--DB_USER=sa",
+                        "--DB_PASS=",
+                        "--SPRING_CLOUD_CONSUL_HOST=localhost",
+                        "--SPRING_CLOUD_CONSUL_PORT=8500",
+                        "--SERVER_PORT=0",
+                        "--GRPC_SERVER_PORT=0",
+                        "--SPRING_SECURITY_OAUTH2_RESOURCESERVER_JWT_ISSUERURI=http://localhost/benchmark",
+                        "--SPRING_JPA_HIBERNATE_DDLAUTO=create-drop",
+                        "--SPRING_JPA_SHOWSQL=false",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.flyway.enabled=false",
+                        "--spring.cloud.consul.enabled=false",
+                        "--cashpilot.grpc.server.compression.enabled=" + compressionEnabled,
+                        "--cashpilot.grpc.server.transport.epoll=" + epoll,
+                        "--cashpilot.grpc.server.rate-limit.enabled=false",
+                        "--cashpilot.change-feed.enabled=false"
+                );
+
+        UserProfileRepository userProfileRepository = context.getBean(UserProfileRepository.class);
+        UserProfile profile = seedProfile(userProfileRepository, GrpcEndToEndBenchmark.USER_ID);
+        seedAccounts(context.getBean(AccountRepository.class), profile);
+        BatchGetUserProfilesRequest.Builder batchRequest = BatchGetUserProfilesRequest.newBuilder()
+                .addUserIds(profile.getUserId());
+        for (int i = 1; i < BATCH_SIZE; i++) {
+            batchRequest.addUserIds(seedProfile(userProfileRepository, "transport-user-" + i).getUserId());
+        }
+        batchGetUserProfilesRequest = batchRequest.build();
+
+        Metadata headers = new Metadata();
+        headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer benchmark-token");
+        channel = Grpc.newChannelBuilderForAddress("localhost", serverPort.port, InsecureChannelCredentials.create())
+                .intercept(MetadataUtils.newAttachHeadersInterceptor(headers))
+                .build();
+        accountStub = AccountServiceGrpc.newBlockingStub(channel);
+        userProfileStub = UserProfileServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        printResponseSizes(context.getBean(MeterRegistry.class));
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    public ListAccountsResponse listAccounts() {
+        return accountStub.listAccounts(ListAccountsRequest.getDefaultInstance());
+    }
+
+    @Benchmark
+    public BatchGetUserProfilesResponse batchGetUserProfiles() {
+        return userProfileStub.batchGetUserProfiles(batchGetUserProfilesRequest);
+    }
+
+
+    private void printResponseSizes(MeterRegistry meterRegistry) {
+        for (DistributionSummary wire : meterRegistry.find("grpc.server.sent.wire.bytes").summaries()) {
+            String method = wire.getId().getTag("method");
+            DistributionSummary uncompressed = meterRegistry.find("grpc.server.sent.uncompressed.bytes")
+                    .tag("method", method)
+                    .summary();
+            System.out.printf("%n%s (compression=%s, epoll=%s): %.0f bytes on the wire, %.0f uncompressed per call%n",
+                    method, compressionEnabled, epoll, wire.mean(), uncompressed == null ? Double.NaN : uncompressed.mean());
+        }
+    }
+
+    private static UserProfile seedProfile(UserProfileRepository userProfileRepository, String userId) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setDefaultCurrency("KZT");
+        profile.setTimezone("Asia/Almaty");
+        profile.setLanguage("ru");
+        profile.setTheme(AppTheme.SYSTEM);
+        profile.setBalanceVisibility(true);
+        return userProfileRepository.save(profile);
+    }
+
+    private static void seedAccounts(AccountRepository accountRepository, UserProfile profile) {
+        for (BankName bankName : BankName.values()) {
+            Account account = new Account();
+            account.setUserProfile(profile);
+            account.setBankName(bankName);
+            account.setAccountName(bankName.name() + " main");
+            account.setCurrency(Currency.KZT);
+            accountRepository.save(account);
+        }
+    }
+
+
+    private static final class ServerPortListener implements ApplicationListener<GrpcServerStartedEvent> {
+
+        private volatile int port;
+
+        @Override
+        public void onApplicationEvent(GrpcServerStartedEvent event) {
+            port = event.getPort();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.userservice.entity.Account;
+import com.cashpilot.userservice.entity.UserProfile;
+import com.cashpilot.userservice.enums.AppTheme;
+import com.cashpilot.userservice.enums.BankName;
+import com.cashpilot.userservice.enums.Currency;
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.cashpilot.userservice.mapper.AccountMapper;
+import com.cashpilot.userservice.mapper.AccountMapperImpl;
+import com.cashpilot.userservice.mapper.TimestampMapper;
+import com.cashpilot.userservice.mapper.UserProfileMapper;
+import com.cashpilot.userservice.mapper.UserProfileMapperImpl;
+import com.google.protobuf.Timestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int accountCount;
+
+    private final TimestampMapper timestampMapper = new TimestampMapper();
+    private final AccountMapper accountMapper = new AccountMapperImpl();
+    private final UserProfileMapper userProfileMapper = new UserProfileMapperImpl();
+
+    private Instant instant;
+    private UserProfile userProfile;
+    private Account account;
+    private List<Account> accounts;
+
+    @Setup
+    public void setUp() {
+        // MapStruct генерирует field injection, поэтому зависимость проставляем вручную
+        Field timestampMapperField = ReflectionUtils.findField(AccountMapperImpl.class, "timestampMapper");
+        ReflectionUtils.makeAccessible(timestampMapperField);
+        ReflectionUtils.setField(timestampMapperField, accountMapper, timestampMapper);
+
+        instant = Instant.now();
+
+        userProfile = new UserProfile();
+        userProfile.setUserId(UUID.randomUUID().toString());
+        userProfile.setDefaultCurrency("KZT");
+        userProfile.setTimezone("Asia/Almaty");
+        userProfile.setLanguage("ru");
+        userProfile.setTheme(AppTheme.DARK);
+        userProfile.setBalanceVisibility(true);
+        userProfile.setCreatedAt(instant);
+        userProfile.setUpdatedAt(instant);
+
+        accounts = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(newAccount(i));
+        }
+        account = accounts.get(0);
+    }
+
+    @Benchmark
+    public Timestamp instantToTimestamp() {
+        return timestampMapper.instantToTimestamp(instant);
+    }
+
+    @Benchmark
+    public AccountProto accountEntityToProto() {
+        return accountMapper.entityToProto(account);
+    }
+
+    @Benchmark
+    public List<AccountProto> accountEntitiesToProtos() {
+        return accountMapper.entitiesToProtos(accounts);
+    }
+
+    @Benchmark
+    public UserProfileResponse userProfileToResponse() {
+        return userProfileMapper.toResponse(userProfile);
+    }
+
+
+    private Account newAccount(int index) {
+        Account newAccount = new Account();
+        newAccount.setAccountId(UUID.randomUUID());
+        newAccount.setUserProfile(userProfile);
+        newAccount.setBankName(index % 2 == 0 ? BankName.KASPI : BankName.HALYK);
+        newAccount.setAccountName("Account " + index);
+        newAccount.setCurrency(Currency.KZT);
+        newAccount.setFirstTransactionDate(instant);
+        newAccount.setLastTransactionDate(instant);
+        newAccount.setCreatedAt(instant);
+        newAccount.setUpdatedAt(instant);
+        return newAccount;
+    }
+}
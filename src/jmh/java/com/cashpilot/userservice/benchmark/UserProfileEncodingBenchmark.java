@@ -0,0 +1,107 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.cashpilot.userservice.grpc.UserProfileResponseV2;
+import com.google.protobuf.Timestamp;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of putting a cached GetUserProfile response on the wire: the v1 message with string
+ * timestamps, the v2 message with native timestamps, and v2 kept as encoded bytes. Each
+ * benchmark drains the stream gRPC would frame into a sink. Run with {@code -prof gc} for
+ * allocation per call (gc.alloc.rate.norm); wire sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserProfileEncodingBenchmark {
+
+    private final MethodDescriptor.Marshaller<UserProfileResponse> v1Marshaller =
+            ProtoUtils.marshaller(UserProfileResponse.getDefaultInstance());
+    private final MethodDescriptor.Marshaller<UserProfileResponseV2> v2Marshaller =
+            ProtoUtils.marshaller(UserProfileResponseV2.getDefaultInstance());
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    private UserProfileResponse v1Response;
+    private UserProfileResponseV2 v2Response;
+    private byte[] v2Encoded;
+
+    @Setup
+    public void setUp() {
+        Instant createdAt = Instant.parse("2024-03-01T08:15:30.123456Z");
+        Instant updatedAt = Instant.parse("2024-06-12T17:42:05.654321Z");
+
+        v1Response = UserProfileResponse.newBuilder()
+                .setUserId("0b7c3c1e-7d7a-4a8e-9a55-5b8f0f2f6c11")
+                .setDefaultCurrency("KZT")
+                .setBalanceVisibility(true)
+                .setTimezone("Asia/Almaty")
+                .setLanguage("ru")
+                .setTheme("DARK")
+                .setOnboardingCompleted(true)
+                .setCreatedAt(createdAt.toString())
+                .setUpdatedAt(updatedAt.toString())
+                .setEtag("12")
+                .build();
+        v2Response = UserProfileResponseV2.newBuilder()
+                .setUserId(v1Response.getUserId())
+                .setDefaultCurrency(v1Response.getDefaultCurrency())
+                .setBalanceVisibility(true)
+                .setTimezone(v1Response.getTimezone())
+                .setLanguage(v1Response.getLanguage())
+                .setTheme(v1Response.getTheme())
+                .setOnboardingCompleted(true)
+                .setCreatedAt(timestamp(createdAt))
+                .setUpdatedAt(timestamp(updatedAt))
+                .setEtag(v1Response.getEtag())
+                .build();
+        v2Encoded = v2Response.toByteArray();
+
+        System.out.printf("%nWire bytes per GetUserProfile: v1=%d, v2=%d%n",
+                v1Response.getSerializedSize(), v2Encoded.length);
+    }
+
+    @Benchmark
+    public long v1Message() throws IOException {
+        return v1Marshaller.stream(v1Response).transferTo(sink);
+    }
+
+    @Benchmark
+    public long v2Message() throws IOException {
+        return v2Marshaller.stream(v2Response).transferTo(sink);
+    }
+
+    @Benchmark
+    public long v2PreEncoded() throws IOException {
+        // То же, что делает PreEncodedMarshaller
+        return new ByteArrayInputStream(v2Encoded).transferTo(sink);
+    }
+
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+}
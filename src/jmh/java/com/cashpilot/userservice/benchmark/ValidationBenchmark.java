@@ -0,0 +1,69 @@
+package com.cashpilot.userservice.benchmark;
+
+import com.cashpilot.account.proto.BankNameProto;
+import com.cashpilot.account.proto.CreateAccountRequest;
+import com.cashpilot.account.proto.CreateAccountRequestValidator;
+import com.cashpilot.userservice.exception.ValidationException;
+import com.cashpilot.userservice.service.ValidatorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final ValidatorService validatorService = new ValidatorService();
+
+    private final CreateAccountRequest validRequest = CreateAccountRequest.newBuilder()
+            .setBankName(BankNameProto.KASPI)
+            .setAccountName("My Kaspi")
+            .setCurrency("KZT")
+            .build();
+
+    private final CreateAccountRequest invalidRequest = CreateAccountRequest.newBuilder()
+            .setBankName(BankNameProto.BANK_NAME_UNSPECIFIED)
+            .setCurrency("XXX")
+            .build();
+
+    @Benchmark
+    public void createAccountRequestAccepted() {
+        validatorService.validate(validRequest);
+    }
+
+    @Benchmark
+    public Object createAccountRequestRejected() {
+        try {
+            validatorService.validate(invalidRequest);
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * The previous path: a fresh generated validator per call and a wrapping exception that fills
+     * in its stack trace. Kept as the baseline for {@link #createAccountRequestRejected()}.
+     */
+    @Benchmark
+    public Object createAccountRequestRejectedPerCallValidator() {
+        try {
+            new CreateAccountRequestValidator().assertValid(invalidRequest, null);
+            return null;
+        } catch (io.envoyproxy.pgv.ValidationException e) {
+            return new RuntimeException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cashpilot.userservice.cache;
+
+import com.cashpilot.account.proto.ListAccountsResponse;
+import com.cashpilot.userservice.config.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AccountListCache extends UserScopedCache<ListAccountsResponse> {
+
+    public static final String CACHE_NAME = "accountLists";
+
+    public AccountListCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        super(CACHE_NAME, cacheProperties.accountList(), meterRegistry);
+    }
+}
@@ -0,0 +1,8 @@
+package com.cashpilot.userservice.cache;
+
+/**
+ * A response kept in its serialized form together with the etag clients compare against, so a
+ * cache hit needs neither a message builder nor re-encoding.
+ */
+public record EncodedMessage(String etag, byte[] bytes) {
+}
@@ -0,0 +1,19 @@
+package com.cashpilot.userservice.cache;
+
+import com.cashpilot.userservice.config.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encoded {@code UserProfileResponseV2} per user. Shares the size and expiry settings of
+ * {@link UserProfileCache} and is invalidated by the same writes.
+ */
+@Component
+public class EncodedUserProfileCache extends UserScopedCache<EncodedMessage> {
+
+    public static final String CACHE_NAME = "userProfilesV2";
+
+    public EncodedUserProfileCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        super(CACHE_NAME, cacheProperties.userProfile(), meterRegistry);
+    }
+}
@@ -0,0 +1,90 @@
+package com.cashpilot.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key: the first caller runs the loader and callers that
+ * arrive while it runs get its result. Unlike a cache nothing outlives the load: a caller gets the
+ * result of a query that was already running when it arrived, or runs its own.
+ */
+public class SingleFlight<V> {
+
+    private final ConcurrentMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loaded;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.loaded = callCounter(name, "loaded", meterRegistry);
+        this.coalesced = callCounter(name, "coalesced", meterRegistry);
+    }
+
+    public V load(String key, Function<String, V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        loaded.increment();
+        try {
+            V value = loader.apply(key);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Lets the next caller start a new load instead of joining one that may have read data
+     * from before a write.
+     */
+    public void forget(String key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Counts a load run by a cache that coalesces its own misses, so the metrics cover the cached
+     * path as well as {@link #load}.
+     */
+    void countLoaded() {
+        loaded.increment();
+    }
+
+    void countCoalesced() {
+        coalesced.increment();
+    }
+
+
+    static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter callCounter(String name, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("cashpilot.single.flight.calls")
+                .description("Loads run and calls that joined a load already in flight")
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,16 @@
+package com.cashpilot.userservice.cache;
+
+import com.cashpilot.userservice.config.CacheProperties;
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserProfileCache extends UserScopedCache<UserProfileResponse> {
+
+    public static final String CACHE_NAME = "userProfiles";
+
+    public UserProfileCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        super(CACHE_NAME, cacheProperties.userProfile(), meterRegistry);
+    }
+}
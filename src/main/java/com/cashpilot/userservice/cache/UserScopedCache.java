@@ -0,0 +1,102 @@
+package com.cashpilot.userservice.cache;
+
+import com.cashpilot.userservice.config.CacheProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded per-user cache whose writes are applied after the surrounding transaction commits.
+ */
+abstract class UserScopedCache<V> {
+
+    private final AsyncCache<String, V> cache;
+    private final SingleFlight<Optional<V>> singleFlight;
+    private final boolean enabled;
+
+    protected UserScopedCache(String name, CacheProperties.Spec spec, MeterRegistry meterRegistry) {
+        this.enabled = spec.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name);
+        this.singleFlight = new SingleFlight<>(name, meterRegistry);
+    }
+
+    /**
+     * Returns the cached value or loads it with {@code loader} on the calling thread. Callers that
+     * find a load for the same user in flight wait for it and are counted as coalesced. A put or
+     * evict replaces an in-flight load, so a load that raced with a commit cannot overwrite the
+     * fresher value put after that commit. With the cache disabled, concurrent loads for the same
+     * user still share one query.
+     */
+    public Optional<V> get(String userId, Function<String, Optional<V>> loader) {
+        if (!enabled) {
+            return singleFlight.load(userId, loader);
+        }
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(userId, (key, executor) -> call);
+        if (cached != call) {
+            // Незавершенное значение - чужая загрузка, к которой присоединяется этот вызов
+            if (!cached.isDone()) {
+                singleFlight.countCoalesced();
+            }
+            return Optional.ofNullable(SingleFlight.await(cached));
+        }
+        singleFlight.countLoaded();
+        try {
+            V value = loader.apply(userId).orElse(null);
+            // null убирает запись из кэша
+            call.complete(value);
+            return Optional.ofNullable(value);
+        } catch (RuntimeException | Error e) {
+            // Убираем запись до завершения, иначе Caffeine залогирует ошибку загрузки еще раз
+            cache.asMap().remove(userId, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void put(String userId, V value) {
+        cache.synchronous().invalidate(userId);
+        singleFlight.forget(userId);
+        afterCommit(() -> {
+            singleFlight.forget(userId);
+            if (enabled) {
+                cache.put(userId, CompletableFuture.completedFuture(value));
+            }
+        });
+    }
+
+    public void evict(String userId) {
+        cache.synchronous().invalidate(userId);
+        singleFlight.forget(userId);
+        afterCommit(() -> {
+            cache.synchronous().invalidate(userId);
+            singleFlight.forget(userId);
+        });
+    }
+
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
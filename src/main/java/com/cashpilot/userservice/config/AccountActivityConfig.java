@@ -0,0 +1,9 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AccountActivityProperties.class)
+public class AccountActivityConfig {
+}
@@ -0,0 +1,14 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cashpilot.account-activity")
+public record AccountActivityProperties(
+        @DefaultValue("500ms") Duration flushInterval,
+        @DefaultValue("5000") int maxPendingAccounts,
+        @DefaultValue("5s") Duration failureBackoff
+) {
+}
@@ -0,0 +1,20 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cashpilot.cache")
+public record CacheProperties(
+        @DefaultValue Spec userProfile,
+        @DefaultValue Spec accountList
+) {
+
+    public record Spec(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") long maximumSize,
+            @DefaultValue("10m") Duration expireAfterWrite
+    ) {
+    }
+}
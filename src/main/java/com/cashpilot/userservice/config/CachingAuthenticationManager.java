@@ -0,0 +1,109 @@
+package com.cashpilot.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Remembers successfully verified bearer tokens until their {@code exp}, so a client reusing
+ * the same token is not decoded and signature-checked on every call. Entries are keyed by the
+ * SHA-256 of the token; raw tokens are never kept in memory.
+ *
+ * <p>Only tokens the delegate accepted are stored, and the delegate's validators have already
+ * checked {@code nbf} (with their clock skew), so {@code nbf} needs no re-check on a hit. A hit
+ * whose {@code exp} has passed is dropped and verified again, regardless of eviction timing.
+ * Tokens without {@code exp} and failed verifications are never cached.
+ */
+public class CachingAuthenticationManager implements AuthenticationManager {
+
+    static final String CACHE_NAME = "verifiedTokens";
+
+    private final AuthenticationManager delegate;
+    private final Clock clock;
+    private final Cache<String, JwtAuthenticationToken> verified;
+
+    public CachingAuthenticationManager(AuthenticationManager delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingAuthenticationManager(AuthenticationManager delegate, long maximumSize, MeterRegistry meterRegistry,
+                                 Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry(clock))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, CACHE_NAME);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+            return delegate.authenticate(authentication);
+        }
+        String key = sha256(bearer.getToken());
+        JwtAuthenticationToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            if (clock.instant().isBefore(cached.getToken().getExpiresAt())) {
+                return cached;
+            }
+            verified.invalidate(key);
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result instanceof JwtAuthenticationToken jwtAuthentication
+                && jwtAuthentication.getToken().getExpiresAt() != null) {
+            verified.put(key, jwtAuthentication);
+        }
+        return result;
+    }
+
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, JwtAuthenticationToken> {
+
+        private final Clock clock;
+
+        private UntilTokenExpiry(Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, JwtAuthenticationToken value, long currentTime) {
+            Duration remaining = Duration.between(clock.instant(), value.getToken().getExpiresAt());
+            return Math.max(0, remaining.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtAuthenticationToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtAuthenticationToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cashpilot.change-feed")
+public record ChangeFeedProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200ms") Duration pollInterval,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("10000") int subscriberBufferSize
+) {
+}
@@ -0,0 +1,53 @@
+package com.cashpilot.userservice.config;
+
+import com.cashpilot.userservice.datasource.ReadJdbcClients;
+import com.cashpilot.userservice.datasource.ReadYourWritesTracker;
+import com.cashpilot.userservice.datasource.ReplicaPoolDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceRoutingConfig {
+
+    // Пулы реплик не регистрируются как бины DataSource, иначе отключится автоконфигурация основного
+    @Bean(destroyMethod = "close")
+    public ReadJdbcClients readJdbcClients(JdbcClient jdbcClient,
+                                           DataSource dataSource,
+                                           DataSourceProperties dataSourceProperties,
+                                           ReplicaProperties replicaProperties,
+                                           ReadYourWritesTracker readYourWritesTracker) throws SQLException {
+        if (replicaProperties.urls().isEmpty()) {
+            return new ReadJdbcClients(jdbcClient, null, readYourWritesTracker);
+        }
+        // Основной пул без обертки RpcStatsDataSource, чтобы fallback не учитывался в метриках дважды
+        HikariDataSource primary = dataSource.unwrap(HikariDataSource.class);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.urls().size(); i++) {
+            HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaProperties.urls().get(i))
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            // Те же настройки драйвера, что у основного пула: кеш prepared statements и порог серверной подготовки
+            replica.setDataSourceProperties(primary.getDataSourceProperties());
+            replica.setMaximumPoolSize(replicaProperties.maximumPoolSize());
+            replica.setConnectionTimeout(replicaProperties.connectionTimeout().toMillis());
+            // Недоступная при старте реплика не роняет приложение, а исключается при первом запросе
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        ReplicaPoolDataSource replicaPool = new ReplicaPoolDataSource(replicas, primary, replicaProperties.ejectFor());
+        return new ReadJdbcClients(jdbcClient, replicaPool, readYourWritesTracker);
+    }
+}
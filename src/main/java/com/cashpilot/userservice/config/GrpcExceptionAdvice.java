@@ -1,7 +1,9 @@
 package com.cashpilot.userservice.config;
 
 import com.cashpilot.userservice.exception.AlreadyExistException;
+import com.cashpilot.userservice.exception.EtagMismatchException;
 import com.cashpilot.userservice.exception.NotFoundException;
+import com.cashpilot.userservice.exception.UnavailableException;
 import com.cashpilot.userservice.exception.ValidationException;
 import io.grpc.Status;
 import net.devh.boot.grpc.server.advice.GrpcAdvice;
@@ -15,7 +17,7 @@ public class GrpcExceptionAdvice {
 
     @GrpcExceptionHandler(AccessDeniedException.class)
     public Status handleAccessDeniedException(AccessDeniedException e) {
-        log.warn("Access Denied: {}", e.getMessage());
+        log.debug("Access Denied: {}", e.getMessage());
         return Status.PERMISSION_DENIED
                 .withDescription("Доступ запрещен: у вас нет прав на доступ к этому ресурсу.");
     }
@@ -23,25 +25,39 @@ public class GrpcExceptionAdvice {
 
     @GrpcExceptionHandler(ValidationException.class)
     public Status handleValidationException(ValidationException e) {
-        log.warn("Validation failed: {}", e.getMessage());
+        log.debug("Validation failed: {}", e.getMessage());
         return Status.INVALID_ARGUMENT.withDescription(e.getMessage());
     }
 
 
     @GrpcExceptionHandler(NotFoundException.class)
     public Status handleNotFoundException(NotFoundException e) {
-        log.info("Resource not found: {}", e.getMessage());
+        log.debug("Resource not found: {}", e.getMessage());
         return Status.NOT_FOUND.withDescription(e.getMessage());
     }
 
 
     @GrpcExceptionHandler(AlreadyExistException.class)
     public Status handleAlreadyExistException(AlreadyExistException e) {
-        log.info("Resource already exists: {}", e.getMessage());
+        log.debug("Resource already exists: {}", e.getMessage());
         return Status.ALREADY_EXISTS.withDescription(e.getMessage());
     }
 
 
+    @GrpcExceptionHandler(EtagMismatchException.class)
+    public Status handleEtagMismatchException(EtagMismatchException e) {
+        log.debug("Etag mismatch: {}", e.getMessage());
+        return Status.ABORTED.withDescription(e.getMessage());
+    }
+
+
+    @GrpcExceptionHandler(UnavailableException.class)
+    public Status handleUnavailableException(UnavailableException e) {
+        log.debug("Service unavailable: {}", e.getMessage());
+        return Status.UNAVAILABLE.withDescription(e.getMessage());
+    }
+
+
     @GrpcExceptionHandler(Exception.class)
     public Status handleException(Exception e) {
         log.error("An unexpected error occurred: {}", e.getMessage(), e);
@@ -0,0 +1,86 @@
+package com.cashpilot.userservice.config;
+
+import com.cashpilot.userservice.interceptor.AccessLogServerInterceptor;
+import com.cashpilot.userservice.interceptor.ConcurrencyLimitingServerInterceptor;
+import com.cashpilot.userservice.interceptor.GradientConcurrencyLimit;
+import com.cashpilot.userservice.interceptor.LoadSheddingServerInterceptor;
+import com.cashpilot.userservice.interceptor.UserRateLimiter;
+import com.cashpilot.userservice.interceptor.ValidatingServerInterceptor;
+import com.cashpilot.userservice.service.ValidatorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties(GrpcServerProperties.class)
+public class GrpcServerConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "cashpilot.grpc.server", name = "virtual-threads", havingValue = "true")
+    public ExecutorService grpcVirtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-vt-", 0).factory());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cashpilot.grpc.server", name = "virtual-threads", havingValue = "true")
+    public GrpcServerConfigurer virtualThreadExecutorConfigurer(ExecutorService grpcVirtualThreadExecutor) {
+        return serverBuilder -> serverBuilder.executor(grpcVirtualThreadExecutor);
+    }
+
+    // Сразу после аутентификации: субъект JWT уже известен, а до авторизации и сервиса вызов не дошел
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_SECURITY_AUTHENTICATION + 50)
+    @ConditionalOnExpression("${cashpilot.grpc.server.rate-limit.enabled:true} or ${cashpilot.grpc.server.load-shedding.enabled:true}")
+    public LoadSheddingServerInterceptor loadSheddingServerInterceptor(GrpcServerProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        GrpcServerProperties.RateLimit rateLimit = properties.rateLimit();
+        GrpcServerProperties.LoadShedding shedding = properties.loadShedding();
+        UserRateLimiter userRateLimiter = rateLimit.enabled()
+                ? new UserRateLimiter(rateLimit.permitsPerSecond(), rateLimit.burst(),
+                        rateLimit.maximumUsers(), rateLimit.expireAfterAccess())
+                : null;
+        GradientConcurrencyLimit concurrencyLimit = shedding.enabled()
+                ? new GradientConcurrencyLimit(shedding.initialLimit(), shedding.minLimit(), shedding.maxLimit(),
+                        shedding.smoothing(), shedding.window(), shedding.minWindowSamples())
+                : null;
+        return new LoadSheddingServerInterceptor(userRateLimiter, rateLimit.exemptAuthorities(), concurrencyLimit,
+                meterRegistry);
+    }
+
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_SECURITY_AUTHORISATION + 100)
+    @ConditionalOnExpression("${cashpilot.grpc.server.max-concurrent-calls:0} > 0")
+    public ConcurrencyLimitingServerInterceptor concurrencyLimitingServerInterceptor(GrpcServerProperties properties,
+                                                                                     MeterRegistry meterRegistry) {
+        // Ожидание разрешения допустимо только на виртуальных потоках, иначе оно блокирует поток executor-а
+        Duration permitTimeout = properties.virtualThreads() ? properties.callPermitTimeout() : Duration.ZERO;
+        return new ConcurrencyLimitingServerInterceptor(properties.maxConcurrentCalls(), permitTimeout, meterRegistry);
+    }
+
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_GLOBAL_EXCEPTION_HANDLING - 50)
+    @ConditionalOnProperty(prefix = "cashpilot.grpc.server.access-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AccessLogServerInterceptor accessLogServerInterceptor(GrpcServerProperties properties) {
+        GrpcServerProperties.AccessLog accessLog = properties.accessLog();
+        return new AccessLogServerInterceptor(accessLog.sampleRate(), accessLog.slowThreshold());
+    }
+
+    // Проверка идет в onMessage, то есть уже после аутентификации в startCall, но до обработчика:
+    // отклоненный запрос не доходит до @PreAuthorize и транзакции
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_SECURITY_EXCEPTION_HANDLING - 100)
+    public ValidatingServerInterceptor validatingServerInterceptor(ValidatorService validatorService) {
+        return new ValidatingServerInterceptor(validatorService);
+    }
+}
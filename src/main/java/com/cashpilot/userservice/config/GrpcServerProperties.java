@@ -0,0 +1,73 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "cashpilot.grpc.server")
+public record GrpcServerProperties(
+        @DefaultValue("false") boolean virtualThreads,
+        @DefaultValue("0") int maxConcurrentCalls,
+        @DefaultValue("2s") Duration callPermitTimeout,
+        @DefaultValue AccessLog accessLog,
+        @DefaultValue Transport transport,
+        @DefaultValue Compression compression,
+        @DefaultValue RateLimit rateLimit,
+        @DefaultValue LoadShedding loadShedding
+) {
+
+    public record AccessLog(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("0.01") double sampleRate,
+            @DefaultValue("500ms") Duration slowThreshold
+    ) {
+    }
+
+    /**
+     * Netty-level settings; keepalive and connection age are configured through the starter's own
+     * {@code grpc.server.*} properties.
+     */
+    public record Transport(
+            @DefaultValue("true") boolean epoll,
+            // 0 - значение Netty по умолчанию, два потока на ядро
+            @DefaultValue("0") int workerThreads,
+            @DefaultValue("1MB") DataSize flowControlWindow,
+            @DefaultValue("100") int maxConcurrentCallsPerConnection,
+            @DefaultValue("true") boolean pooledDirectBuffers
+    ) {
+    }
+
+    public record Compression(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("1KB") DataSize minMessageSize,
+            // Полные имена методов, например com.cashpilot.account.AccountService/StreamAccounts
+            @DefaultValue List<String> excludedMethods
+    ) {
+    }
+
+    public record RateLimit(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("20") double permitsPerSecond,
+            @DefaultValue("40") int burst,
+            @DefaultValue("100000") long maximumUsers,
+            @DefaultValue("10m") Duration expireAfterAccess,
+            // Внутренние сервисы ходят под одним subject и не должны делить одну пользовательскую корзину
+            @DefaultValue("SCOPE_internal") Set<String> exemptAuthorities
+    ) {
+    }
+
+    public record LoadShedding(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("100") int initialLimit,
+            @DefaultValue("20") int minLimit,
+            @DefaultValue("1000") int maxLimit,
+            @DefaultValue("0.2") double smoothing,
+            @DefaultValue("100ms") Duration window,
+            @DefaultValue("10") int minWindowSamples
+    ) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.cashpilot.userservice.config;
+
+import com.cashpilot.userservice.interceptor.CompressingServerInterceptor;
+import com.cashpilot.userservice.metrics.MessageSizeStreamTracerFactory;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.buffer.PooledByteBufAllocator;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+
+@Slf4j
+@Configuration
+public class GrpcTransportConfig {
+
+    // grpc.server.port=-1 оставляет только in-process сервер: Netty и его потоки тогда не нужны
+    private static final String NETTY_SERVER_ENABLED = "'${grpc.server.port:9090}' != '-1'";
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    @ConditionalOnExpression(NETTY_SERVER_ENABLED)
+    public EventLoopGroup grpcBossEventLoopGroup(GrpcServerProperties properties) {
+        return eventLoopGroup(useEpoll(properties), 1, "grpc-boss");
+    }
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    @ConditionalOnExpression(NETTY_SERVER_ENABLED)
+    public EventLoopGroup grpcWorkerEventLoopGroup(GrpcServerProperties properties) {
+        return eventLoopGroup(useEpoll(properties), properties.transport().workerThreads(), "grpc-worker");
+    }
+
+    @Bean
+    @ConditionalOnExpression(NETTY_SERVER_ENABLED)
+    public GrpcServerConfigurer nettyTransportConfigurer(GrpcServerProperties properties,
+                                                         EventLoopGroup grpcBossEventLoopGroup,
+                                                         EventLoopGroup grpcWorkerEventLoopGroup) {
+        GrpcServerProperties.Transport transport = properties.transport();
+        boolean epoll = useEpoll(properties);
+        return serverBuilder -> {
+            // In-process сервер, запущенный рядом с Netty, настраивать нечего
+            if (!(serverBuilder instanceof NettyServerBuilder nettyBuilder)) {
+                return;
+            }
+            Class<? extends ServerChannel> channelType = epoll
+                    ? EpollServerSocketChannel.class
+                    : NioServerSocketChannel.class;
+            nettyBuilder.channelType(channelType)
+                    .bossEventLoopGroup(grpcBossEventLoopGroup)
+                    .workerEventLoopGroup(grpcWorkerEventLoopGroup)
+                    .flowControlWindow((int) transport.flowControlWindow().toBytes())
+                    .maxConcurrentCallsPerConnection(transport.maxConcurrentCallsPerConnection());
+            if (transport.pooledDirectBuffers()) {
+                nettyBuilder.withChildOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+            }
+            log.info("gRPC transport: {}, flow-control window {}, {} streams per connection",
+                    channelType.getSimpleName(), transport.flowControlWindow(),
+                    transport.maxConcurrentCallsPerConnection());
+        };
+    }
+
+    @Bean
+    public GrpcServerConfigurer messageSizeTracerConfigurer(MeterRegistry meterRegistry) {
+        MessageSizeStreamTracerFactory tracerFactory = new MessageSizeStreamTracerFactory(meterRegistry);
+        return serverBuilder -> serverBuilder.addStreamTracerFactory(tracerFactory);
+    }
+
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_GLOBAL_EXCEPTION_HANDLING - 150)
+    @ConditionalOnProperty(prefix = "cashpilot.grpc.server.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CompressingServerInterceptor compressingServerInterceptor(GrpcServerProperties properties) {
+        GrpcServerProperties.Compression compression = properties.compression();
+        return new CompressingServerInterceptor((int) compression.minMessageSize().toBytes(),
+                compression.excludedMethods());
+    }
+
+
+    private static boolean useEpoll(GrpcServerProperties properties) {
+        return properties.transport().epoll() && Epoll.isAvailable();
+    }
+
+    private static EventLoopGroup eventLoopGroup(boolean epoll, int threads, String name) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+        return epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+}
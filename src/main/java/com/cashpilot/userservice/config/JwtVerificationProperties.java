@@ -0,0 +1,26 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cashpilot.security.jwt")
+public record JwtVerificationProperties(
+        @DefaultValue TokenCache tokenCache,
+        @DefaultValue Jwks jwks
+) {
+
+    public record TokenCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") long maximumSize
+    ) {
+    }
+
+    public record Jwks(
+            @DefaultValue("15m") Duration timeToLive,
+            @DefaultValue("1m") Duration refreshAhead,
+            @DefaultValue("5s") Duration refreshTimeout
+    ) {
+    }
+}
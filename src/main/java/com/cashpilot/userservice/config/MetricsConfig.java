@@ -0,0 +1,37 @@
+package com.cashpilot.userservice.config;
+
+import com.cashpilot.userservice.interceptor.GrpcMetricsServerInterceptor;
+import com.cashpilot.userservice.metrics.RpcStatsDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig {
+
+    // Снаружи интерцептора обработки исключений: статусы из @GrpcAdvice тоже попадают в метрики
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_GLOBAL_EXCEPTION_HANDLING - 100)
+    public GrpcMetricsServerInterceptor grpcMetricsServerInterceptor(MeterRegistry meterRegistry) {
+        return new GrpcMetricsServerInterceptor(meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor rpcStatsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new RpcStatsDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "cashpilot.datasource.replicas")
+public record ReplicaProperties(
+        @DefaultValue List<String> urls,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("1s") Duration connectionTimeout,
+        @DefaultValue("30s") Duration ejectFor,
+        @DefaultValue("5s") Duration readYourWritesWindow
+) {
+}
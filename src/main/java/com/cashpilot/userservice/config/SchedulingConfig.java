@@ -0,0 +1,14 @@
+package com.cashpilot.userservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} for the whole service. The scheduler pool is sized by
+ * {@code spring.task.scheduling.pool.size} so the change-feed poll, the outbox purge and the
+ * account-activity flush do not wait on each other.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
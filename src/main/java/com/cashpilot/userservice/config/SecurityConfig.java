@@ -1,7 +1,21 @@
 package com.cashpilot.userservice.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.security.authentication.BearerAuthenticationReader;
 import net.devh.boot.grpc.server.security.authentication.GrpcAuthenticationReader;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,13 +25,22 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(JwtVerificationProperties.class)
 public class SecurityConfig {
 
     @Bean
@@ -33,10 +56,51 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * JWKS keys are cached and refreshed ahead of expiry in the background, so the issuer is
+     * only contacted on the request path when a token is signed with an unknown key.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource(OAuth2ResourceServerProperties resourceServerProperties,
+                                                JwtVerificationProperties verificationProperties) throws MalformedURLException {
+        JwtVerificationProperties.Jwks jwks = verificationProperties.jwks();
+        return JWKSourceBuilder.<SecurityContext>create(URI.create(resourceServerProperties.getJwt().getJwkSetUri()).toURL())
+                .cache(jwks.timeToLive().toMillis(), jwks.refreshTimeout().toMillis())
+                .refreshAheadCache(jwks.refreshAhead().toMillis(), true)
+                .retrying(true)
+                .build();
+    }
+
     @Bean
-    public AuthenticationManager authenticationManager(JwtDecoder jwtDecoder) {
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource,
+                                 OAuth2ResourceServerProperties resourceServerProperties) {
+        // Алгоритмы берутся из spring.security.oauth2.resourceserver.jwt.jws-algorithms (по умолчанию RS256)
+        Set<JWSAlgorithm> algorithms = resourceServerProperties.getJwt().getJwsAlgorithms().stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toUnmodifiableSet());
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+        // Проверку claims выполняют валидаторы Spring ниже
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(resourceServerProperties.getJwt().getIssuerUri()));
+        return decoder;
+    }
+
+    @Bean
+    public AuthenticationManager authenticationManager(JwtDecoder jwtDecoder,
+                                                       JwtVerificationProperties verificationProperties,
+                                                       MeterRegistry meterRegistry) {
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwtDecoder);
-        return new ProviderManager(provider);
+        AuthenticationManager authenticationManager = new ProviderManager(provider);
+
+        JwtVerificationProperties.TokenCache tokenCache = verificationProperties.tokenCache();
+        if (!tokenCache.enabled()) {
+            return authenticationManager;
+        }
+        return new CachingAuthenticationManager(authenticationManager, tokenCache.maximumSize(), meterRegistry);
     }
 
     @Bean
@@ -45,4 +109,15 @@ public class SecurityConfig {
             return new BearerTokenAuthenticationToken(token);
         });
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> jwksWarmUp(JWKSource<SecurityContext> jwkSource) {
+        return event -> {
+            try {
+                jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            } catch (Exception e) {
+                log.warn("Failed to preload JWKS, keys will be fetched on first request: {}", e.getMessage());
+            }
+        };
+    }
+}
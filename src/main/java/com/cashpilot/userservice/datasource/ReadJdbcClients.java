@@ -0,0 +1,49 @@
+package com.cashpilot.userservice.datasource;
+
+import com.cashpilot.userservice.metrics.RpcStatsDataSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.util.Collection;
+
+/**
+ * Chooses the {@link JdbcClient} for a user's read: a replica, unless the user wrote recently
+ * or no replicas are configured.
+ */
+public class ReadJdbcClients implements AutoCloseable {
+
+    private final JdbcClient primary;
+    private final ReplicaPoolDataSource replicaPool;
+    private final JdbcClient replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadJdbcClients(JdbcClient primary, ReplicaPoolDataSource replicaPool, ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+        this.replicas = replicaPool != null ? JdbcClient.create(new RpcStatsDataSource(replicaPool)) : null;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    public JdbcClient forUser(String userId) {
+        if (replicas == null || readYourWritesTracker.wroteRecently(userId)) {
+            return primary;
+        }
+        return replicas;
+    }
+
+    /**
+     * Client for a read that spans several users: the primary if any of them wrote recently.
+     */
+    public JdbcClient forUsers(Collection<String> userIds) {
+        if (replicas == null || userIds.stream().anyMatch(readYourWritesTracker::wroteRecently)) {
+            return primary;
+        }
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        if (replicaPool != null) {
+            replicaPool.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cashpilot.userservice.datasource;
+
+import com.cashpilot.userservice.config.ReplicaProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers users who changed their data within the last {@code readYourWritesWindow}; their
+ * reads go to the primary so they never observe replication lag on their own writes.
+ *
+ * <p>The window lives in this instance's memory only. The guarantee holds when a user's
+ * requests stick to the instance that served the write (sticky sessions keyed by user); a read
+ * routed to another instance may still go to a lagging replica.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(ReplicaProperties properties) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(properties.readYourWritesWindow())
+                .build();
+    }
+
+    public void recordWrite(String userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(String userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cashpilot.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out connections from read replicas in round-robin order. A replica that fails to
+ * provide a connection is skipped for {@code ejectFor}; when every replica is ejected or
+ * failing, connections come from the primary.
+ */
+@Slf4j
+public class ReplicaPoolDataSource extends AbstractDataSource implements Closeable {
+
+    private static final long NOT_EJECTED = Long.MIN_VALUE;
+
+    private final List<HikariDataSource> replicas;
+    private final DataSource primary;
+    private final long ejectForNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    // NOT_EJECTED вместо 0: у System.nanoTime() произвольное начало отсчета, и 0 может оказаться в будущем
+    private final AtomicLongArray ejectedUntil;
+
+    public ReplicaPoolDataSource(List<HikariDataSource> replicas, DataSource primary, Duration ejectFor) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.ejectForNanos = ejectFor.toNanos();
+        this.ejectedUntil = new AtomicLongArray(this.replicas.size());
+        for (int i = 0; i < this.replicas.size(); i++) {
+            ejectedUntil.set(i, NOT_EJECTED);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            long now = System.nanoTime();
+            long until = ejectedUntil.get(index);
+            if (until != NOT_EJECTED && until - now > 0) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException e) {
+                log.warn("Replica {} unavailable, ejecting for {} ms: {}",
+                        replicas.get(index).getPoolName(), ejectForNanos / 1_000_000, e.getMessage());
+                ejectedUntil.set(index, now + ejectForNanos);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Hikari pools are bound to the credentials they were built with, so per-call credentials
+     * cannot be honoured by either the replicas or the primary pool.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials come from spring.datasource");
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -16,7 +16,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "accounts", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"user_profile_id", "bank_name"})
+        @UniqueConstraint(name = "uk_user_profile_bank_name", columnNames = {"user_profile_id", "bank_name"})
 })
 @Getter
 @Setter
@@ -57,4 +57,8 @@ public class Account {
     @UpdateTimestamp
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
 }
\ No newline at end of file
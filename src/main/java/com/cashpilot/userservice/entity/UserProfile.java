@@ -2,12 +2,14 @@ package com.cashpilot.userservice.entity;
 
 import com.cashpilot.userservice.enums.AppTheme;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 import java.util.HashSet;
@@ -19,7 +21,7 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class UserProfile {
+public class UserProfile implements Persistable<String> {
 
     @Id
     @Column(name = "user_id")
@@ -56,6 +58,10 @@ public class UserProfile {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version; // Увеличивается при каждом изменении; наружу отдается как etag
+
 
     @OneToMany(
             mappedBy = "userProfile",
@@ -63,4 +69,27 @@ public class UserProfile {
             orphanRemoval = true
     )
     private Set<Account> accounts = new HashSet<>();
+
+    // ID назначается из токена, поэтому без этого флага save() делает лишний SELECT перед INSERT
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+
+    @Override
+    public String getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        this.persisted = true;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package com.cashpilot.userservice.exception;
 
-public class AlreadyExistException extends RuntimeException{
+public class AlreadyExistException extends RuntimeException {
 
     public AlreadyExistException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,23 @@
+package com.cashpilot.userservice.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public final class ConstraintViolations {
+
+    public static final String USER_PROFILES_PKEY = "user_profiles_pkey";
+    public static final String UK_USER_PROFILE_BANK_NAME = "uk_user_profile_bank_name";
+    public static final String FK_ACCOUNTS_USER_PROFILE = "fk_accounts_user_profile";
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean isViolationOf(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return constraintName.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,8 @@
+package com.cashpilot.userservice.exception;
+
+public class EtagMismatchException extends RuntimeException {
+
+    public EtagMismatchException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,7 +1,8 @@
 package com.cashpilot.userservice.exception;
 
 public class NotFoundException extends RuntimeException {
+
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
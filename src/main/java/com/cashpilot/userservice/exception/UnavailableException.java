@@ -0,0 +1,8 @@
+package com.cashpilot.userservice.exception;
+
+public class UnavailableException extends RuntimeException {
+
+    public UnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,7 +1,12 @@
 package com.cashpilot.userservice.exception;
 
-public class ValidationException extends RuntimeException{
+/**
+ * Client errors are rejected at high rates and only their message reaches the gRPC status,
+ * so the stack trace is not captured.
+ */
+public class ValidationException extends RuntimeException {
+
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
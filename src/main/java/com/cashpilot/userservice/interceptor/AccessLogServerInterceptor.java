@@ -0,0 +1,79 @@
+package com.cashpilot.userservice.interceptor;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes one key=value line per call to the {@code grpc.access} logger. Successful fast calls are
+ * sampled at {@code sampleRate}; failed calls and calls slower than {@code slowThreshold} are
+ * always logged. A call cancelled by the client is never closed by the server, so it is logged
+ * from the listener's onCancel instead; whichever comes first writes the line.
+ */
+@Slf4j(topic = "grpc.access")
+public class AccessLogServerInterceptor implements ServerInterceptor {
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogServerInterceptor(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (!log.isInfoEnabled()) {
+            return next.startCall(call, headers);
+        }
+        long startNanos = System.nanoTime();
+        AtomicBoolean logged = new AtomicBoolean();
+        ServerCall<ReqT, RespT> loggedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (logged.compareAndSet(false, true)) {
+                    logCall(call, status, System.nanoTime() - startNanos);
+                }
+                super.close(status, trailers);
+            }
+        };
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(loggedCall, headers)) {
+            @Override
+            public void onCancel() {
+                if (logged.compareAndSet(false, true)) {
+                    logCall(call, Status.CANCELLED, System.nanoTime() - startNanos);
+                }
+                super.onCancel();
+            }
+        };
+    }
+
+
+    private void logCall(ServerCall<?, ?> call, Status status, long durationNanos) {
+        boolean failed = !status.isOk();
+        boolean slow = durationNanos >= slowThresholdNanos;
+        if (!failed && !slow && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        String method = call.getMethodDescriptor().getFullMethodName();
+        if (failed) {
+            log.info("method={} status={} duration_ms={} slow={} description=\"{}\"",
+                    method, status.getCode(), durationMs, slow, status.getDescription());
+        } else {
+            log.info("method={} status={} duration_ms={} slow={}", method, status.getCode(), durationMs, slow);
+        }
+    }
+}
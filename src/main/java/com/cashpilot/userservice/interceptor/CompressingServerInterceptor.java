@@ -0,0 +1,65 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Offers gzip for responses and compresses only messages of at least {@code minMessageSize} bytes:
+ * on small messages the gzip header and CPU cost outweigh the savings. gRPC falls back to identity
+ * by itself when the client did not list gzip in {@code grpc-accept-encoding}.
+ */
+public class CompressingServerInterceptor implements ServerInterceptor {
+
+    private static final String GZIP = "gzip";
+
+    private final int minMessageSize;
+    private final Set<String> excludedMethods;
+
+    public CompressingServerInterceptor(int minMessageSize, Collection<String> excludedMethods) {
+        this.minMessageSize = minMessageSize;
+        this.excludedMethods = Set.copyOf(excludedMethods);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (excludedMethods.contains(call.getMethodDescriptor().getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+        ServerCall<ReqT, RespT> compressingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendHeaders(Metadata responseHeaders) {
+                // Кодек выбирается до отправки заголовков, поэтому решение принимается для всего вызова,
+                // а порог применяется к каждому сообщению отдельно
+                super.setCompression(GZIP);
+                super.sendHeaders(responseHeaders);
+            }
+
+            @Override
+            public void sendMessage(RespT message) {
+                super.setMessageCompression(serializedSize(message) >= minMessageSize);
+                super.sendMessage(message);
+            }
+        };
+        return next.startCall(compressingCall, headers);
+    }
+
+
+    private static int serializedSize(Object message) {
+        if (message instanceof MessageLite protoMessage) {
+            return protoMessage.getSerializedSize();
+        }
+        if (message instanceof byte[] encoded) {
+            return encoded.length;
+        }
+        return Integer.MAX_VALUE;
+    }
+}
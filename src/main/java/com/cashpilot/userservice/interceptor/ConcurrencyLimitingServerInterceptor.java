@@ -0,0 +1,85 @@
+package com.cashpilot.userservice.interceptor;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many unary calls execute their handler at once, so that thousands of parked virtual
+ * threads queue on a cheap fair semaphore instead of piling up on the Hikari pool and timing out
+ * there. The permit is held for the handler's {@code onHalfClose}, which for a unary call is all of
+ * its work; streaming calls do their work across many listener callbacks and pass through unlimited.
+ * With a zero permit timeout a call that finds no free permit is rejected at once, which is what
+ * platform-thread executors need: waiting there would block a shared executor thread.
+ */
+@Slf4j
+public class ConcurrencyLimitingServerInterceptor implements ServerInterceptor {
+
+    private final Semaphore permits;
+    private final long permitTimeoutNanos;
+    private final Counter rejectedCalls;
+
+    public ConcurrencyLimitingServerInterceptor(int maxConcurrentCalls, Duration permitTimeout, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.permitTimeoutNanos = permitTimeout.toNanos();
+        this.rejectedCalls = Counter.builder("grpc.server.calls.shed")
+                .description("Calls rejected with RESOURCE_EXHAUSTED before reaching a service")
+                .tag("reason", "call_permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+        if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            return listener;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onHalfClose() {
+                if (!acquirePermit()) {
+                    // Под перегрузкой отказы идут на каждом вызове: считаем их метрикой, а не строкой лога
+                    rejectedCalls.increment();
+                    if (log.isDebugEnabled()) {
+                        log.debug("No call permit within {} ms for {}", TimeUnit.NANOSECONDS.toMillis(permitTimeoutNanos),
+                                call.getMethodDescriptor().getFullMethodName());
+                    }
+                    call.close(Status.RESOURCE_EXHAUSTED.withDescription("Сервер перегружен, повторите запрос позже."),
+                            new Metadata());
+                    return;
+                }
+                try {
+                    super.onHalfClose();
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+
+    private boolean acquirePermit() {
+        if (permitTimeoutNanos == 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(permitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.cashpilot.userservice.interceptor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows latency: once per window the average call time is compared with
+ * its long-term baseline, and the limit shrinks as calls slow down (queueing somewhere behind us,
+ * usually on the Hikari pool) and grows by about {@code sqrt(limit)} while they do not.
+ * Admission is a CAS on one counter; samples go to {@link LongAdder}s and only the thread that
+ * closes a window recomputes the limit.
+ */
+public class GradientConcurrencyLimit {
+
+    // Задержка может вырасти в полтора раза от базовой, прежде чем лимит начнет снижаться
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int BASELINE_WINDOWS = 50;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+
+    private volatile double estimatedLimit;
+    private volatile int limit;
+    private volatile double baselineRttNanos;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                                    Duration window, int minWindowSamples) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.windowNanos = window.toNanos();
+        this.minWindowSamples = minWindowSamples;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        if (current + 1 > peakInFlight.get()) {
+            peakInFlight.accumulateAndGet(current + 1, Math::max);
+        }
+        return true;
+    }
+
+    public void release(long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        long windowStart = windowStartNanos.get();
+        if (nowNanos - windowStart >= windowNanos && windowStartNanos.compareAndSet(windowStart, nowNanos)) {
+            closeWindow();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+
+    private void closeWindow() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int peak = peakInFlight.getAndSet(0);
+        if (samples < minWindowSamples) {
+            return;
+        }
+        double shortRtt = Math.max(1.0, (double) rttSum / samples);
+        double baseline = baselineRttNanos == 0 ? shortRtt : baselineRttNanos + (shortRtt - baselineRttNanos) / BASELINE_WINDOWS;
+        // После перегрузки базовая задержка остается завышенной; пока она вдвое выше текущей, сбрасываем ее быстрее
+        if (baseline / shortRtt > 2) {
+            baseline *= 0.95;
+        }
+        baselineRttNanos = baseline;
+
+        double current = estimatedLimit;
+        // В лимит не упирались - по задержке нельзя судить, хватает ли его
+        if (peak < current / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * baseline / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = Math.max(minLimit, Math.min(maxLimit, current * (1 - smoothing) + target * smoothing));
+        estimatedLimit = next;
+        limit = (int) next;
+    }
+}
@@ -0,0 +1,184 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.cashpilot.userservice.metrics.RpcDbStats;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-method latency histograms by status code, in-flight gauges and the database work
+ * ({@link RpcDbStats}) each call caused, recorded once when the call closes or is cancelled.
+ */
+public class GrpcMetricsServerInterceptor implements ServerInterceptor {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    public GrpcMetricsServerInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        MethodMeters meters = methodMeters.computeIfAbsent(method.getFullMethodName(), name -> new MethodMeters(method));
+        CallRecorder recorder = new CallRecorder(meters);
+
+        ServerCall<ReqT, RespT> monitoredCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                recorder.finish(status.getCode());
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener;
+        RpcDbStats previous = RpcDbStats.bind(recorder.dbStats);
+        try {
+            listener = next.startCall(monitoredCall, headers);
+        } finally {
+            RpcDbStats.restore(previous);
+        }
+        return new DbStatsBindingListener<>(listener, recorder);
+    }
+
+
+    /**
+     * Binds the call's {@link RpcDbStats} around every callback: streaming handlers query the
+     * database from onMessage and onReady as well, not only from onHalfClose.
+     */
+    private static final class DbStatsBindingListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final CallRecorder recorder;
+
+        private DbStatsBindingListener(ServerCall.Listener<ReqT> delegate, CallRecorder recorder) {
+            super(delegate);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            RpcDbStats previous = RpcDbStats.bind(recorder.dbStats);
+            try {
+                super.onMessage(message);
+            } finally {
+                RpcDbStats.restore(previous);
+            }
+        }
+
+        @Override
+        public void onHalfClose() {
+            RpcDbStats previous = RpcDbStats.bind(recorder.dbStats);
+            try {
+                super.onHalfClose();
+            } finally {
+                RpcDbStats.restore(previous);
+            }
+        }
+
+        @Override
+        public void onReady() {
+            RpcDbStats previous = RpcDbStats.bind(recorder.dbStats);
+            try {
+                super.onReady();
+            } finally {
+                RpcDbStats.restore(previous);
+            }
+        }
+
+        @Override
+        public void onCancel() {
+            recorder.finish(Status.Code.CANCELLED);
+            super.onCancel();
+        }
+    }
+
+    private static final class CallRecorder {
+
+        private final MethodMeters meters;
+        private final RpcDbStats dbStats = new RpcDbStats();
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private CallRecorder(MethodMeters meters) {
+            this.meters = meters;
+            meters.inFlight.incrementAndGet();
+        }
+
+        private void finish(Status.Code code) {
+            if (finished.compareAndSet(false, true)) {
+                meters.inFlight.decrementAndGet();
+                meters.latency(code).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                meters.recordDbStats(dbStats);
+            }
+        }
+    }
+
+    private final class MethodMeters {
+
+        private final Tags tags;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<Status.Code, Timer> latencyByStatus = new EnumMap<>(Status.Code.class);
+        private final DistributionSummary dbStatements;
+        private final Timer dbConnectionAcquire;
+
+        private MethodMeters(MethodDescriptor<?, ?> method) {
+            this.tags = Tags.of(
+                    "service", String.valueOf(method.getServiceName()),
+                    "method", String.valueOf(method.getBareMethodName()));
+            Gauge.builder("grpc.server.calls.in.flight", inFlight, AtomicInteger::get)
+                    .description("gRPC calls currently being processed")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.dbStatements = DistributionSummary.builder("grpc.server.db.statements")
+                    .description("JDBC statements executed per call")
+                    .tags(tags)
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry);
+            this.dbConnectionAcquire = Timer.builder("grpc.server.db.connection.acquire")
+                    .description("Time per call spent waiting for pooled JDBC connections")
+                    .tags(tags)
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry);
+        }
+
+        private synchronized Timer latency(Status.Code code) {
+            return latencyByStatus.computeIfAbsent(code, c -> Timer.builder("grpc.server.call.duration")
+                    .description("gRPC call latency by final status")
+                    .tags(tags)
+                    .tag("status", c.name())
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        private void recordDbStats(RpcDbStats stats) {
+            dbStatements.record(stats.getStatements());
+            if (stats.getConnections() > 0) {
+                dbConnectionAcquire.record(stats.getConnectionAcquireNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
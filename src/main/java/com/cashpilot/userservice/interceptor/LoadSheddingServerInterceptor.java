@@ -0,0 +1,116 @@
+package com.cashpilot.userservice.interceptor;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Set;
+
+/**
+ * Rejects calls with {@code RESOURCE_EXHAUSTED} before they reach a service: first against the
+ * caller's own token bucket, keyed by the JWT subject as in {@code SecurityUtil}, then, for unary
+ * calls, against the adaptive {@link GradientConcurrencyLimit}. Unlike
+ * {@link ConcurrencyLimitingServerInterceptor} nothing waits for a permit.
+ * Long-lived streams are not counted against the concurrency limit: they would hold slots and skew
+ * the latency it follows. Callers holding one of the exempt authorities (internal services, which
+ * share a single client-credentials subject) skip the per-user bucket but not the concurrency limit.
+ */
+public class LoadSheddingServerInterceptor implements ServerInterceptor {
+
+    private static final Status USER_RATE_EXCEEDED =
+            Status.RESOURCE_EXHAUSTED.withDescription("Слишком много запросов, повторите позже.");
+    private static final Status OVERLOADED =
+            Status.RESOURCE_EXHAUSTED.withDescription("Сервер перегружен, повторите запрос позже.");
+
+    @Nullable
+    private final UserRateLimiter userRateLimiter;
+    private final Set<String> exemptAuthorities;
+    @Nullable
+    private final GradientConcurrencyLimit concurrencyLimit;
+    private final Counter userRateShed;
+    private final Counter concurrencyShed;
+
+    public LoadSheddingServerInterceptor(@Nullable UserRateLimiter userRateLimiter,
+                                         Set<String> exemptAuthorities,
+                                         @Nullable GradientConcurrencyLimit concurrencyLimit,
+                                         MeterRegistry meterRegistry) {
+        this.userRateLimiter = userRateLimiter;
+        this.exemptAuthorities = Set.copyOf(exemptAuthorities);
+        this.concurrencyLimit = concurrencyLimit;
+        this.userRateShed = shedCounter(meterRegistry, "user_rate");
+        this.concurrencyShed = shedCounter(meterRegistry, "concurrency");
+        if (concurrencyLimit != null) {
+            Gauge.builder("grpc.server.concurrency.limit", concurrencyLimit, GradientConcurrencyLimit::getLimit)
+                    .description("Current adaptive limit on concurrently executing unary calls")
+                    .register(meterRegistry);
+            Gauge.builder("grpc.server.concurrency.in.flight", concurrencyLimit, GradientConcurrencyLimit::getInFlight)
+                    .description("Unary calls currently holding a concurrency slot")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (userRateLimiter != null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && !isExempt(authentication)
+                    && !userRateLimiter.tryAcquire(authentication.getName(), System.nanoTime())) {
+                userRateShed.increment();
+                call.close(USER_RATE_EXCEEDED, new Metadata());
+                return new ServerCall.Listener<>() {
+                };
+            }
+        }
+        ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+        if (concurrencyLimit == null || call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            return listener;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onHalfClose() {
+                if (!concurrencyLimit.tryAcquire()) {
+                    concurrencyShed.increment();
+                    call.close(OVERLOADED, new Metadata());
+                    return;
+                }
+                long startNanos = System.nanoTime();
+                try {
+                    super.onHalfClose();
+                } finally {
+                    long nowNanos = System.nanoTime();
+                    concurrencyLimit.release(nowNanos - startNanos, nowNanos);
+                }
+            }
+        };
+    }
+
+
+    private boolean isExempt(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (exemptAuthorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("grpc.server.calls.shed")
+                .description("Calls rejected with RESOURCE_EXHAUSTED before reaching a service")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
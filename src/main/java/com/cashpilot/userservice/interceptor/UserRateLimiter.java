@@ -0,0 +1,67 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user token buckets. Each bucket is kept in its GCRA form: the whole state is one
+ * "theoretical arrival time", so taking a token is a single CAS on a long and allocates nothing.
+ * Idle buckets are dropped after {@code expireAfterAccess}, by which time they would be full anyway.
+ */
+public class UserRateLimiter {
+
+    private final Cache<String, Bucket> buckets;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    public UserRateLimiter(double permitsPerSecond, int burst, long maximumUsers, Duration expireAfterAccess) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    public boolean tryAcquire(String userId, long nowNanos) {
+        Bucket bucket = buckets.getIfPresent(userId);
+        if (bucket == null) {
+            // Корзина создается только при промахе: лямбда для Cache.get захватывала бы nowNanos на каждом вызове
+            Bucket created = new Bucket(emissionIntervalNanos, burstToleranceNanos, nowNanos);
+            Bucket existing = buckets.asMap().putIfAbsent(userId, created);
+            bucket = existing != null ? existing : created;
+        }
+        return bucket.tryAcquire(nowNanos);
+    }
+
+
+    private static final class Bucket {
+
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final AtomicLong theoreticalArrivalNanos;
+
+        private Bucket(long emissionIntervalNanos, long burstToleranceNanos, long nowNanos) {
+            this.emissionIntervalNanos = emissionIntervalNanos;
+            this.burstToleranceNanos = burstToleranceNanos;
+            this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+        }
+
+        private boolean tryAcquire(long nowNanos) {
+            while (true) {
+                long arrival = theoreticalArrivalNanos.get();
+                long start = arrival - nowNanos > 0 ? arrival : nowNanos;
+                if (start - nowNanos > burstToleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
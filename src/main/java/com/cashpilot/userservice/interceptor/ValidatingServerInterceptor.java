@@ -0,0 +1,81 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.cashpilot.userservice.exception.ValidationException;
+import com.cashpilot.userservice.service.ValidatorService;
+import com.google.protobuf.Message;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Rejects requests that fail their PGV rules as soon as the message arrives, before the handler
+ * runs and with it the method-security and transaction proxies. It cannot run before
+ * authentication: the bearer token is checked in {@code startCall}, before any message has been
+ * received, so an invalid request still pays for JWT verification unless the token is already
+ * in the verification cache.
+ */
+public class ValidatingServerInterceptor implements ServerInterceptor {
+
+    private final ValidatorService validatorService;
+
+    public ValidatingServerInterceptor(ValidatorService validatorService) {
+        this.validatorService = validatorService;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        // Аутентификация может закрыть вызов раньше, чем придет сообщение
+        ClosedTrackingServerCall<ReqT, RespT> trackedCall = new ClosedTrackingServerCall<>(call);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(trackedCall, headers)) {
+
+            private boolean rejected;
+
+            @Override
+            public void onMessage(ReqT message) {
+                if (rejected) {
+                    return;
+                }
+                if (message instanceof Message protoMessage && !trackedCall.closed) {
+                    try {
+                        validatorService.validate(protoMessage);
+                    } catch (ValidationException e) {
+                        rejected = true;
+                        trackedCall.close(Status.INVALID_ARGUMENT.withDescription(e.getMessage()), new Metadata());
+                        return;
+                    }
+                }
+                super.onMessage(message);
+            }
+
+            @Override
+            public void onHalfClose() {
+                if (!rejected) {
+                    super.onHalfClose();
+                }
+            }
+        };
+    }
+
+
+    private static final class ClosedTrackingServerCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private volatile boolean closed;
+
+        private ClosedTrackingServerCall(ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            closed = true;
+            super.close(status, trailers);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 public interface AccountMapper {
 
     @Mapping(source = "userProfile.userId", target = "userProfileId")
+    @Mapping(source = "version", target = "etag")
     @Mapping(target = "allFields", ignore = true)
     @Mapping(target = "unknownFields", ignore = true)
     AccountProto entityToProto(Account account);
@@ -41,6 +42,7 @@ public interface AccountMapper {
     @Mapping(target = "lastTransactionDate", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Account createRequestToEntity(
             CreateAccountRequest request,
             UserProfile userProfile
@@ -56,6 +58,7 @@ public interface AccountMapper {
     @Mapping(target = "lastTransactionDate", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromRequest(
             UpdateAccountRequest request,
             @MappingTarget Account account
@@ -3,7 +3,6 @@ package com.cashpilot.userservice.mapper;
 import com.cashpilot.userservice.entity.UserProfile;
 import com.cashpilot.userservice.enums.AppTheme;
 import com.cashpilot.userservice.grpc.CreateUserProfileRequest;
-import com.cashpilot.userservice.grpc.UpdateUserProfileRequest;
 import com.cashpilot.userservice.grpc.UserProfileResponse;
 import org.mapstruct.*;
 
@@ -12,21 +11,16 @@ import org.mapstruct.*;
 public interface UserProfileMapper {
 
 
+    @Mapping(source = "version", target = "etag")
     UserProfileResponse toResponse(UserProfile userProfile);
 
     @Mapping(target = "userId", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     UserProfile toEntity(CreateUserProfileRequest request);
 
 
-
-    @Mapping(target = "userId", ignore = true)
-    @Mapping(target = "createdAt", ignore = true)
-    @Mapping(target = "updatedAt", ignore = true)
-    void updateEntityFromRequest(UpdateUserProfileRequest request, @MappingTarget UserProfile userProfile);
-
-
     default String mapTheme(AppTheme theme) {
         return theme != null ? theme.name() : null;
     }
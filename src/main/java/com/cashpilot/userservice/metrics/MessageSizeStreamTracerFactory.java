@@ -0,0 +1,91 @@
+package com.cashpilot.userservice.metrics;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes sent per call, as they went over the wire and before compression. Interceptors only see
+ * messages, so the compressed size is available to a stream tracer alone.
+ */
+public class MessageSizeStreamTracerFactory extends ServerStreamTracer.Factory {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    public MessageSizeStreamTracerFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+        return new SizeTracer();
+    }
+
+
+    private final class SizeTracer extends ServerStreamTracer {
+
+        private final AtomicLong wireBytes = new AtomicLong();
+        private final AtomicLong uncompressedBytes = new AtomicLong();
+        private volatile MethodMeters meters;
+
+        // Вызывается только для зарегистрированных методов, так что произвольные имена от клиента
+        // не раздувают число тегов
+        @Override
+        public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+            MethodDescriptor<?, ?> method = callInfo.getMethodDescriptor();
+            meters = methodMeters.computeIfAbsent(method.getFullMethodName(), name -> new MethodMeters(method));
+        }
+
+        @Override
+        public void outboundWireSize(long bytes) {
+            wireBytes.addAndGet(bytes);
+        }
+
+        @Override
+        public void outboundUncompressedSize(long bytes) {
+            uncompressedBytes.addAndGet(bytes);
+        }
+
+        @Override
+        public void streamClosed(Status status) {
+            MethodMeters recorded = meters;
+            if (recorded != null) {
+                recorded.wire.record(wireBytes.get());
+                recorded.uncompressed.record(uncompressedBytes.get());
+            }
+        }
+    }
+
+    private final class MethodMeters {
+
+        private final DistributionSummary wire;
+        private final DistributionSummary uncompressed;
+
+        private MethodMeters(MethodDescriptor<?, ?> method) {
+            Tags tags = Tags.of(
+                    "service", String.valueOf(method.getServiceName()),
+                    "method", String.valueOf(method.getBareMethodName()));
+            this.wire = DistributionSummary.builder("grpc.server.sent.wire.bytes")
+                    .description("Response bytes per call after compression")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.uncompressed = DistributionSummary.builder("grpc.server.sent.uncompressed.bytes")
+                    .description("Response bytes per call before compression")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
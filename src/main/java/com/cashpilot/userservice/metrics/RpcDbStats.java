@@ -0,0 +1,61 @@
+package com.cashpilot.userservice.metrics;
+
+/**
+ * Database work done by one gRPC call. The call's stats are bound to the thread for the duration
+ * of each listener callback, so statements and connection waits are attributed to the call whether
+ * the handler does its work in onHalfClose (unary) or across onMessage and onReady (streaming).
+ * Callbacks of one call are serialized, so the counters need no synchronization.
+ */
+public final class RpcDbStats {
+
+    private static final ThreadLocal<RpcDbStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int connections;
+    private long connectionAcquireNanos;
+
+    /**
+     * Makes {@code stats} the current thread's stats and returns the previous ones, which the
+     * caller hands back to {@link #restore} when the callback ends.
+     */
+    public static RpcDbStats bind(RpcDbStats stats) {
+        RpcDbStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        return previous;
+    }
+
+    public static void restore(RpcDbStats previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static void recordConnectionAcquired(long nanos) {
+        RpcDbStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.connections++;
+            stats.connectionAcquireNanos += nanos;
+        }
+    }
+
+    static void recordStatement() {
+        RpcDbStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public long getConnectionAcquireNanos() {
+        return connectionAcquireNanos;
+    }
+}
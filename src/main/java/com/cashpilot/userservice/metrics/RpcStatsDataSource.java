@@ -0,0 +1,34 @@
+package com.cashpilot.userservice.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Times connection acquisition and counts statements prepared on the returned connections,
+ * feeding {@link RpcDbStats} for whichever RPC is running on the calling thread.
+ */
+public class RpcStatsDataSource extends DelegatingDataSource {
+
+    public RpcStatsDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        RpcDbStats.recordConnectionAcquired(System.nanoTime() - start);
+        return new StatementCountingConnection(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        RpcDbStats.recordConnectionAcquired(System.nanoTime() - start);
+        return new StatementCountingConnection(connection);
+    }
+}
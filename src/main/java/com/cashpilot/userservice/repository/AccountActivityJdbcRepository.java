@@ -0,0 +1,46 @@
+package com.cashpilot.userservice.repository;
+
+import com.cashpilot.account.proto.AccountProto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.core.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class AccountActivityJdbcRepository {
+
+    private final JdbcClient jdbcClient;
+    private final AccountJdbcRepository accountJdbcRepository;
+
+    /**
+     * Widens first/last_transaction_date of every listed account in one statement. The three
+     * lists are parallel; unknown account IDs are skipped, and so are rows whose dates already
+     * cover the reported activity, so their version and ETag stay the same.
+     *
+     * @return the updated accounts as they are after the statement
+     */
+    public List<AccountProto> applyActivity(List<UUID> accountIds, List<Instant> firstActivity, List<Instant> lastActivity) {
+        // LEAST/GREATEST в Postgres пропускают NULL, поэтому пустые даты заполняются первым же событием
+        return jdbcClient.sql("""
+                        UPDATE accounts a
+                        SET first_transaction_date = LEAST(a.first_transaction_date, v.first_at),
+                            last_transaction_date = GREATEST(a.last_transaction_date, v.last_at),
+                            updated_at = now(),
+                            version = a.version + 1
+                        FROM unnest(:accountIds, :firstAt, :lastAt) AS v(id, first_at, last_at)
+                        WHERE a.account_id = v.id
+                          AND (a.first_transaction_date IS DISTINCT FROM LEAST(a.first_transaction_date, v.first_at)
+                               OR a.last_transaction_date IS DISTINCT FROM GREATEST(a.last_transaction_date, v.last_at))
+                        RETURNING\s""" + AccountJdbcRepository.ACCOUNT_COLUMNS)
+                .param("accountIds", new SqlArrayValue("uuid", accountIds.stream().map(UUID::toString).toArray(String[]::new)))
+                .param("firstAt", new SqlArrayValue("timestamptz", firstActivity.stream().map(Instant::toString).toArray(String[]::new)))
+                .param("lastAt", new SqlArrayValue("timestamptz", lastActivity.stream().map(Instant::toString).toArray(String[]::new)))
+                .query(accountJdbcRepository::mapRow)
+                .list();
+    }
+}
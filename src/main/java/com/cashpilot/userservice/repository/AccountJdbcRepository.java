@@ -0,0 +1,109 @@
+package com.cashpilot.userservice.repository;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.account.proto.BankNameProto;
+import com.cashpilot.userservice.mapper.TimestampMapper;
+import com.cashpilot.userservice.datasource.ReadJdbcClients;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read path for accounts that maps rows straight into {@link AccountProto} builders, without
+ * managed entities or a transaction around the query.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountJdbcRepository {
+
+    static final String ACCOUNT_COLUMNS = """
+            account_id, user_profile_id, bank_name, account_name, currency,
+            first_transaction_date, last_transaction_date, created_at, updated_at, version
+            """;
+
+    private static final String SELECT_ACCOUNT = "SELECT " + ACCOUNT_COLUMNS + "FROM accounts\n";
+
+    private final ReadJdbcClients readJdbcClients;
+    private final TimestampMapper timestampMapper;
+
+    public Optional<AccountProto> findByAccountIdAndUserId(UUID accountId, String userId) {
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_ACCOUNT + "WHERE account_id = :accountId AND user_profile_id = :userId")
+                .param("accountId", accountId)
+                .param("userId", userId)
+                .query(this::mapRow)
+                .optional();
+    }
+
+    public List<AccountProto> findAllByAccountIdsAndUserId(Collection<UUID> accountIds, String userId) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_ACCOUNT + "WHERE account_id IN (:accountIds) AND user_profile_id = :userId")
+                .param("accountIds", accountIds)
+                .param("userId", userId)
+                .query(this::mapRow)
+                .list();
+    }
+
+    public List<AccountProto> findAllByUserId(String userId) {
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_ACCOUNT + "WHERE user_profile_id = :userId ORDER BY account_id")
+                .param("userId", userId)
+                .query(this::mapRow)
+                .list();
+    }
+
+    /**
+     * Keyset page over the {@code (user_profile_id, account_id)} index: rows after
+     * {@code afterAccountId}, or the first page when it is {@code null}.
+     */
+    public List<AccountProto> findPageByUserId(String userId, UUID afterAccountId, int limit) {
+        if (afterAccountId == null) {
+            return readJdbcClients.forUser(userId)
+                    .sql(SELECT_ACCOUNT + "WHERE user_profile_id = :userId ORDER BY account_id LIMIT :limit")
+                    .param("userId", userId)
+                    .param("limit", limit)
+                    .query(this::mapRow)
+                    .list();
+        }
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_ACCOUNT
+                        + "WHERE user_profile_id = :userId AND account_id > :afterAccountId ORDER BY account_id LIMIT :limit")
+                .param("userId", userId)
+                .param("afterAccountId", afterAccountId)
+                .param("limit", limit)
+                .query(this::mapRow)
+                .list();
+    }
+
+
+    AccountProto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return AccountProto.newBuilder()
+                .setAccountId(rs.getString("account_id"))
+                .setUserProfileId(rs.getString("user_profile_id"))
+                .setBankName(BankNameProto.valueOf(rs.getString("bank_name")))
+                .setAccountName(rs.getString("account_name"))
+                .setCurrency(rs.getString("currency"))
+                .setFirstTransactionDate(timestampMapper.instantToTimestamp(instant(rs, "first_transaction_date")))
+                .setLastTransactionDate(timestampMapper.instantToTimestamp(instant(rs, "last_transaction_date")))
+                .setCreatedAt(timestampMapper.instantToTimestamp(instant(rs, "created_at")))
+                .setUpdatedAt(timestampMapper.instantToTimestamp(instant(rs, "updated_at")))
+                .setEtag(Long.toString(rs.getLong("version")))
+                .build();
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+}
@@ -3,15 +3,43 @@ package com.cashpilot.userservice.repository;
 import com.cashpilot.account.proto.BankNameProto;
 import com.cashpilot.userservice.entity.Account;
 import com.cashpilot.userservice.enums.BankName;
-import com.cashpilot.userservice.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface AccountRepository extends JpaRepository<Account, UUID> {
-    List<Account> findAllByUserProfile_UserId(String userId);
 
-    boolean existsByUserProfileAndBankName(UserProfile userProfile, BankName bankName);
-}
\ No newline at end of file
+    // expectedVersion = NULL обновляет без проверки версии
+    @Query(value = """
+            UPDATE accounts
+            SET account_name = :accountName, updated_at = now(), version = version + 1
+            WHERE account_id = :accountId AND user_profile_id = :userId
+              AND (CAST(:expectedVersion AS BIGINT) IS NULL OR version = :expectedVersion)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<Account> updateAccountName(@Param("accountId") UUID accountId,
+                                        @Param("userId") String userId,
+                                        @Param("accountName") String accountName,
+                                        @Param("expectedVersion") Long expectedVersion);
+
+    @Modifying
+    @Query("delete from Account a where a.accountId = :accountId and a.userProfile.userId = :userId")
+    int deleteByAccountIdAndUserId(@Param("accountId") UUID accountId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("delete from Account a where a.accountId = :accountId and a.userProfile.userId = :userId and a.version = :version")
+    int deleteByAccountIdAndUserIdAndVersion(@Param("accountId") UUID accountId,
+                                             @Param("userId") String userId,
+                                             @Param("version") long version);
+
+    @Query("select count(a) > 0 from Account a where a.accountId = :accountId and a.userProfile.userId = :userId")
+    boolean existsByAccountIdAndUserId(@Param("accountId") UUID accountId, @Param("userId") String userId);
+
+    @Query("select a.bankName from Account a where a.userProfile.userId = :userId")
+    List<BankName> findBankNamesByUserId(@Param("userId") String userId);
+}
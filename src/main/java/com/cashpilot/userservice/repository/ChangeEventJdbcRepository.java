@@ -0,0 +1,165 @@
+package com.cashpilot.userservice.repository;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.changefeed.proto.ChangeEvent;
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.changefeed.proto.EntityType;
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outbox of profile and account changes. Inserts join the caller's transaction, so an event
+ * exists exactly when the change it describes was committed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeEventJdbcRepository {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO change_events (user_id, entity_type, entity_id, change_type, payload)
+            VALUES (:userId, :entityType, :entityId, :changeType, :payload)
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void recordUserProfileChange(String userId, ChangeType changeType, UserProfileResponse profile) {
+        jdbcClient.sql(INSERT_EVENT)
+                .paramSource(eventParams(userId, EntityType.USER_PROFILE, userId, changeType,
+                        profile != null ? profile.toByteArray() : null))
+                .update();
+    }
+
+    public void recordAccountChanges(ChangeType changeType, List<AccountProto> accounts) {
+        SqlParameterSource[] batch = accounts.stream()
+                .map(account -> eventParams(account.getUserProfileId(), EntityType.ACCOUNT, account.getAccountId(),
+                        changeType, account.toByteArray()))
+                .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(INSERT_EVENT, batch);
+    }
+
+    public void recordAccountDeleted(String userId, String accountId) {
+        jdbcClient.sql(INSERT_EVENT)
+                .paramSource(eventParams(userId, EntityType.ACCOUNT, accountId, ChangeType.DELETED, null))
+                .update();
+    }
+
+    /**
+     * Events after {@code after} in transaction ID order, limited to transactions older than the
+     * snapshot xmin. Every transaction below xmin has finished, so an event can no longer appear
+     * behind a position once it has been returned; a long-running transaction holds the feed back
+     * instead.
+     */
+    public List<StoredChangeEvent> findAfter(FeedPosition after, int limit) {
+        return jdbcClient.sql("""
+                        SELECT event_id, txid, user_id, entity_type, entity_id, change_type, payload, created_at
+                        FROM change_events
+                        WHERE (txid, event_id) > (:afterTxid, :afterEventId)
+                          AND txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+                        ORDER BY txid, event_id
+                        LIMIT :limit
+                        """)
+                .param("afterTxid", after.txid())
+                .param("afterEventId", after.eventId())
+                .param("limit", limit)
+                .query(ChangeEventJdbcRepository::mapRow)
+                .list();
+    }
+
+    public FeedPosition findLatestPosition() {
+        return jdbcClient.sql("""
+                        SELECT txid, event_id
+                        FROM change_events
+                        WHERE txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+                        ORDER BY txid DESC, event_id DESC
+                        LIMIT 1
+                        """)
+                .query((rs, rowNum) -> new FeedPosition(rs.getLong("txid"), rs.getLong("event_id")))
+                .optional()
+                .orElse(FeedPosition.START);
+    }
+
+    public Optional<FeedPosition> findPosition(long eventId) {
+        return jdbcClient.sql("SELECT txid FROM change_events WHERE event_id = :eventId")
+                .param("eventId", eventId)
+                .query((rs, rowNum) -> new FeedPosition(rs.getLong("txid"), eventId))
+                .optional();
+    }
+
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcClient.sql("DELETE FROM change_events WHERE created_at < :cutoff")
+                .param("cutoff", cutoff.atOffset(ZoneOffset.UTC))
+                .update();
+    }
+
+
+    private static MapSqlParameterSource eventParams(String userId, EntityType entityType, String entityId,
+                                                     ChangeType changeType, byte[] payload) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("entityType", entityType.name())
+                .addValue("entityId", entityId)
+                .addValue("changeType", changeType.name())
+                .addValue("payload", payload);
+    }
+
+    private static StoredChangeEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        EntityType entityType = EntityType.valueOf(rs.getString("entity_type"));
+        Instant createdAt = rs.getObject("created_at", OffsetDateTime.class).toInstant();
+        ChangeEvent.Builder event = ChangeEvent.newBuilder()
+                .setEventId(rs.getLong("event_id"))
+                .setUserId(rs.getString("user_id"))
+                .setEntityType(entityType)
+                .setEntityId(rs.getString("entity_id"))
+                .setChangeType(ChangeType.valueOf(rs.getString("change_type")))
+                .setOccurredAt(Timestamp.newBuilder()
+                        .setSeconds(createdAt.getEpochSecond())
+                        .setNanos(createdAt.getNano()));
+        byte[] payload = rs.getBytes("payload");
+        if (payload != null) {
+            try {
+                if (entityType == EntityType.USER_PROFILE) {
+                    event.setUserProfile(UserProfileResponse.parseFrom(payload));
+                } else {
+                    event.setAccount(AccountProto.parseFrom(payload));
+                }
+            } catch (InvalidProtocolBufferException e) {
+                throw new SQLException("Corrupted payload in change event " + rs.getLong("event_id"), e);
+            }
+        }
+        return new StoredChangeEvent(new FeedPosition(rs.getLong("txid"), rs.getLong("event_id")), event.build());
+    }
+
+
+    /**
+     * Place of an event in the feed: its transaction id, then its event_id within that transaction.
+     */
+    public record FeedPosition(long txid, long eventId) implements Comparable<FeedPosition> {
+
+        public static final FeedPosition START = new FeedPosition(0, 0);
+
+        @Override
+        public int compareTo(FeedPosition other) {
+            int byTxid = Long.compare(txid, other.txid);
+            return byTxid != 0 ? byTxid : Long.compare(eventId, other.eventId);
+        }
+    }
+
+    public record StoredChangeEvent(FeedPosition position, ChangeEvent event) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.cashpilot.userservice.repository;
+
+import com.cashpilot.userservice.grpc.UserProfileResponse;
+import com.cashpilot.userservice.grpc.UserProfileResponseV2;
+import com.cashpilot.userservice.datasource.ReadJdbcClients;
+import com.google.protobuf.Timestamp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Read path for user profiles that maps rows straight into the response message, without a
+ * persistence context or a transaction: the connection is held only for the single query.
+ * Queries go to a read replica unless the user has just written; partial updates go to the
+ * primary and return the updated row the same way.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserProfileJdbcRepository {
+
+    private static final String USER_PROFILE_COLUMNS = """
+            user_id, default_currency, balance_visibility, timezone, language, theme,
+            notify_on_budget_limit, onboarding_completed, created_at, updated_at, version
+            """;
+    private static final String SELECT_USER_PROFILE = "SELECT " + USER_PROFILE_COLUMNS + "FROM user_profiles\n";
+
+    private final ReadJdbcClients readJdbcClients;
+    private final JdbcClient jdbcClient;
+
+    public Optional<UserProfileResponse> findResponseById(String userId) {
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_USER_PROFILE + "WHERE user_id = :userId")
+                .param("userId", userId)
+                .query(UserProfileJdbcRepository::mapRow)
+                .optional();
+    }
+
+    public List<UserProfileResponse> findResponsesByIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return readJdbcClients.forUsers(userIds)
+                .sql(SELECT_USER_PROFILE + "WHERE user_id IN (:userIds)")
+                .param("userIds", userIds)
+                .query(UserProfileJdbcRepository::mapRow)
+                .list();
+    }
+
+    public Optional<UserProfileResponseV2> findResponseV2ById(String userId) {
+        return readJdbcClients.forUser(userId)
+                .sql(SELECT_USER_PROFILE + "WHERE user_id = :userId")
+                .param("userId", userId)
+                .query(UserProfileJdbcRepository::mapRowV2)
+                .optional();
+    }
+
+    /**
+     * Writes only the given columns, without loading the row first. Column names are
+     * interpolated into the statement, so callers must take them from a fixed set. With a
+     * non-null {@code expectedVersion} the row is only written if its version still matches;
+     * an empty result then means either no profile or a newer version.
+     */
+    public Optional<UserProfileResponse> updateColumns(String userId, Map<String, ?> columnValues, Long expectedVersion) {
+        String assignments = columnValues.keySet().stream()
+                .map(column -> column + " = :" + column)
+                .collect(Collectors.joining(", "));
+        String versionCondition = expectedVersion != null ? " AND version = :expectedVersion" : "";
+        return jdbcClient.sql("UPDATE user_profiles SET " + assignments + ", updated_at = now(), version = version + 1 "
+                        + "WHERE user_id = :userId" + versionCondition + " RETURNING " + USER_PROFILE_COLUMNS)
+                .params(columnValues)
+                .param("userId", userId)
+                .param("expectedVersion", expectedVersion)
+                .query(UserProfileJdbcRepository::mapRow)
+                .optional();
+    }
+
+
+    static UserProfileResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return UserProfileResponse.newBuilder()
+                .setUserId(rs.getString("user_id"))
+                .setDefaultCurrency(nullToEmpty(rs.getString("default_currency")))
+                .setBalanceVisibility(rs.getBoolean("balance_visibility"))
+                .setTimezone(nullToEmpty(rs.getString("timezone")))
+                .setLanguage(nullToEmpty(rs.getString("language")))
+                .setTheme(nullToEmpty(rs.getString("theme")))
+                .setSendNotificationToGmail(rs.getBoolean("notify_on_budget_limit"))
+                .setOnboardingCompleted(rs.getBoolean("onboarding_completed"))
+                .setCreatedAt(instantString(rs, "created_at"))
+                .setUpdatedAt(instantString(rs, "updated_at"))
+                .setEtag(Long.toString(rs.getLong("version")))
+                .build();
+    }
+
+    static UserProfileResponseV2 mapRowV2(ResultSet rs, int rowNum) throws SQLException {
+        return UserProfileResponseV2.newBuilder()
+                .setUserId(rs.getString("user_id"))
+                .setDefaultCurrency(nullToEmpty(rs.getString("default_currency")))
+                .setBalanceVisibility(rs.getBoolean("balance_visibility"))
+                .setTimezone(nullToEmpty(rs.getString("timezone")))
+                .setLanguage(nullToEmpty(rs.getString("language")))
+                .setTheme(nullToEmpty(rs.getString("theme")))
+                .setSendNotificationToGmail(rs.getBoolean("notify_on_budget_limit"))
+                .setOnboardingCompleted(rs.getBoolean("onboarding_completed"))
+                .setCreatedAt(timestamp(rs, "created_at"))
+                .setUpdatedAt(timestamp(rs, "updated_at"))
+                .setEtag(Long.toString(rs.getLong("version")))
+                .build();
+    }
+
+    private static String nullToEmpty(String value) {
+        return Objects.requireNonNullElse(value, "");
+    }
+
+    // Тот же формат, что дает MapStruct для Instant -> String (ISO-8601 в UTC)
+    private static String instantString(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant().toString() : "";
+    }
+
+    private static Timestamp timestamp(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        if (value == null) {
+            return Timestamp.getDefaultInstance();
+        }
+        return Timestamp.newBuilder()
+                .setSeconds(value.toEpochSecond())
+                .setNanos(value.getNano())
+                .build();
+    }
+}
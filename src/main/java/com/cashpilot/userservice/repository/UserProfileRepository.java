@@ -2,8 +2,20 @@ package com.cashpilot.userservice.repository;
 
 import com.cashpilot.userservice.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, String> {
+
+    // Счета удаляются каскадом в БД (ON DELETE CASCADE), без загрузки коллекции в контекст
+    @Modifying
+    @Query("delete from UserProfile p where p.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    @Modifying
+    @Query("delete from UserProfile p where p.userId = :userId and p.version = :version")
+    int deleteByUserIdAndVersion(@Param("userId") String userId, @Param("version") long version);
 }
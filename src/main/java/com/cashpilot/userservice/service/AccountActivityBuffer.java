@@ -0,0 +1,199 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.config.AccountActivityProperties;
+import com.cashpilot.userservice.exception.UnavailableException;
+import com.cashpilot.userservice.repository.AccountActivityJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for account activity. Events are folded into one (first, last) range per
+ * account and written with a single batched UPDATE, so the row write rate is bounded by the
+ * number of distinct accounts per flush rather than by the event rate. Each changed row is
+ * recorded in the change_events outbox in the same transaction as the UPDATE.
+ */
+@Slf4j
+@Component
+public class AccountActivityBuffer {
+
+    private final AccountActivityJdbcRepository accountActivityRepository;
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final AccountListCache accountListCache;
+    private final TransactionOperations transactionOperations;
+    private final AccountActivityProperties properties;
+    private final ConcurrentHashMap<UUID, ActivityRange> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Counter receivedEvents;
+    private final Counter updatedRows;
+    private final Counter rejectedEvents;
+
+    // Меняются только под flushLock, читаются без него
+    private volatile boolean lastFlushFailed;
+    private volatile long lastFailureNanos;
+
+    public AccountActivityBuffer(AccountActivityJdbcRepository accountActivityRepository,
+                                 ChangeEventJdbcRepository changeEventRepository,
+                                 AccountListCache accountListCache,
+                                 TransactionOperations transactionOperations,
+                                 AccountActivityProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.accountActivityRepository = accountActivityRepository;
+        this.changeEventRepository = changeEventRepository;
+        this.accountListCache = accountListCache;
+        this.transactionOperations = transactionOperations;
+        this.properties = properties;
+        this.receivedEvents = Counter.builder("cashpilot.account.activity.events")
+                .description("Account activity events received")
+                .register(meterRegistry);
+        this.updatedRows = Counter.builder("cashpilot.account.activity.updated.rows")
+                .description("Account rows updated by activity flushes")
+                .register(meterRegistry);
+        this.rejectedEvents = Counter.builder("cashpilot.account.activity.rejected.events")
+                .description("Account activity events rejected because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("cashpilot.account.activity.pending", pending, Map::size)
+                .description("Accounts with activity not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds an event to the buffer. A full buffer is flushed on the calling thread, which holds
+     * back the stream it reads from; while the database is failing a full buffer rejects the
+     * event instead of retrying the write on every call.
+     *
+     * @throws UnavailableException when the buffer is full and cannot be flushed right now
+     */
+    public void record(UUID accountId, Instant occurredAt) {
+        if (pending.size() >= properties.maxPendingAccounts()) {
+            flushWhenFull();
+        }
+        pending.merge(accountId, new ActivityRange(occurredAt, occurredAt), ActivityRange::widen);
+        receivedEvents.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${cashpilot.account-activity.flush-interval:500ms}")
+    public void flush() {
+        if (isBackingOff()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushPending();
+            if (!pending.isEmpty()) {
+                log.error("Activity for {} accounts was not written before shutdown", pending.size());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+
+    private void flushWhenFull() {
+        // Поток-производитель ждет идущего сброса по таймеру и сбрасывает сам: пока он пишет, стрим не читает события
+        if (!isBackingOff()) {
+            flushLock.lock();
+            try {
+                if (pending.size() >= properties.maxPendingAccounts() && !isBackingOff()) {
+                    flushPending();
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        if (pending.size() >= properties.maxPendingAccounts()) {
+            rejectedEvents.increment();
+            throw new UnavailableException("Буфер активности переполнен, повторите позже.");
+        }
+    }
+
+    private boolean isBackingOff() {
+        return lastFlushFailed && System.nanoTime() - lastFailureNanos < properties.failureBackoff().toNanos();
+    }
+
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // remove() по одному ключу: событие, пришедшее после удаления, попадет в следующий сброс, а не потеряется
+        Map<UUID, ActivityRange> drained = new HashMap<>();
+        for (UUID accountId : pending.keySet()) {
+            ActivityRange range = pending.remove(accountId);
+            if (range != null) {
+                drained.put(accountId, range);
+            }
+        }
+
+        List<UUID> accountIds = new ArrayList<>(drained.size());
+        List<Instant> firstActivity = new ArrayList<>(drained.size());
+        List<Instant> lastActivity = new ArrayList<>(drained.size());
+        drained.forEach((accountId, range) -> {
+            accountIds.add(accountId);
+            firstActivity.add(range.first());
+            lastActivity.add(range.last());
+        });
+
+        List<AccountProto> updatedAccounts;
+        try {
+            updatedAccounts = transactionOperations.execute(status -> {
+                List<AccountProto> updated = accountActivityRepository.applyActivity(accountIds, firstActivity, lastActivity);
+                if (!updated.isEmpty()) {
+                    changeEventRepository.recordAccountChanges(ChangeType.UPDATED, updated);
+                }
+                return updated;
+            });
+        } catch (RuntimeException e) {
+            drained.forEach((accountId, range) -> pending.merge(accountId, range, ActivityRange::widen));
+            lastFailureNanos = System.nanoTime();
+            lastFlushFailed = true;
+            log.warn("Failed to flush activity for {} accounts, retrying in {}: {}",
+                    drained.size(), properties.failureBackoff(), e.toString());
+            log.debug("Activity flush failure", e);
+            return;
+        }
+        lastFlushFailed = false;
+        updatedRows.increment(updatedAccounts.size());
+        updatedAccounts.stream()
+                .map(AccountProto::getUserProfileId)
+                .distinct()
+                .forEach(accountListCache::evict);
+    }
+
+
+    private record ActivityRange(Instant first, Instant last) {
+
+        ActivityRange widen(ActivityRange other) {
+            return new ActivityRange(
+                    first.isBefore(other.first) ? first : other.first,
+                    last.isAfter(other.last) ? last : other.last);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.userservice.repository.AccountJdbcRepository;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streams a user's accounts page by page, fetching the next keyset page only when the previous
+ * one has been written and the transport reports it is ready for more.
+ * gRPC runs the ready and cancel handlers serially, so no further locking is needed.
+ */
+@Slf4j
+class AccountPageStreamer implements Runnable {
+
+    private final ServerCallStreamObserver<AccountProto> responseObserver;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final String userId;
+    private final int pageSize;
+
+    private final ArrayDeque<AccountProto> page = new ArrayDeque<>();
+    private UUID lastAccountId;
+    private boolean lastPageFetched;
+    private volatile boolean finished;
+
+    AccountPageStreamer(ServerCallStreamObserver<AccountProto> responseObserver,
+                        AccountJdbcRepository accountJdbcRepository,
+                        String userId,
+                        int pageSize) {
+        this.responseObserver = responseObserver;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.userId = userId;
+        this.pageSize = pageSize;
+    }
+
+    void start() {
+        responseObserver.setOnCancelHandler(() -> {
+            log.debug("StreamAccounts cancelled by client for user ID: {}", userId);
+            finished = true;
+        });
+        responseObserver.setOnReadyHandler(this);
+    }
+
+    @Override
+    public void run() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (responseObserver.isReady()) {
+                AccountProto account = page.poll();
+                if (account == null) {
+                    if (lastPageFetched || !fetchNextPage()) {
+                        finished = true;
+                        responseObserver.onCompleted();
+                        return;
+                    }
+                    continue;
+                }
+                responseObserver.onNext(account);
+            }
+        } catch (RuntimeException e) {
+            log.error("StreamAccounts failed for user ID: {}", userId, e);
+            finished = true;
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Внутренняя ошибка сервера.")
+                    .asRuntimeException());
+        }
+    }
+
+
+    private boolean fetchNextPage() {
+        List<AccountProto> accounts = accountJdbcRepository.findPageByUserId(userId, lastAccountId, pageSize);
+        lastPageFetched = accounts.size() < pageSize;
+        if (accounts.isEmpty()) {
+            return false;
+        }
+        lastAccountId = UUID.fromString(accounts.get(accounts.size() - 1).getAccountId());
+        page.addAll(accounts);
+        return true;
+    }
+}
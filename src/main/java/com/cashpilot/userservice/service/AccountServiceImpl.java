@@ -2,128 +2,307 @@ package com.cashpilot.userservice.service;
 
 import com.cashpilot.account.proto.*;
 import com.cashpilot.account.proto.AccountServiceGrpc.AccountServiceImplBase;
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.datasource.ReadYourWritesTracker;
 import com.cashpilot.userservice.entity.Account;
 import com.cashpilot.userservice.entity.UserProfile;
 import com.cashpilot.userservice.enums.BankName;
 import com.cashpilot.userservice.exception.AlreadyExistException;
+import com.cashpilot.userservice.exception.ConstraintViolations;
+import com.cashpilot.userservice.exception.EtagMismatchException;
 import com.cashpilot.userservice.exception.NotFoundException;
 import com.cashpilot.userservice.exception.ValidationException;
 import com.cashpilot.userservice.mapper.AccountMapper;
+import com.cashpilot.userservice.repository.AccountJdbcRepository;
 import com.cashpilot.userservice.repository.AccountRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
 import com.cashpilot.userservice.repository.UserProfileRepository;
 import com.cashpilot.userservice.config.SecurityUtil;
 import com.google.protobuf.Empty;
+import com.google.rpc.Code;
+import com.google.rpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @GrpcService
 @RequiredArgsConstructor
 public class AccountServiceImpl extends AccountServiceImplBase {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final AccountRepository accountRepository;
+    private final AccountJdbcRepository accountJdbcRepository;
     private final UserProfileRepository userProfileRepository;
     private final AccountMapper accountMapper;
     private final SecurityUtil securityUtil;
     private final ValidatorService validatorService;
+    private final AccountListCache accountListCache;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final AccountActivityBuffer accountActivityBuffer;
 
     @Override
     @Transactional
     public void createAccount(CreateAccountRequest request, StreamObserver<com.cashpilot.account.proto.AccountProto> responseObserver) {
-        log.info("gRPC CreateAccount: bank={}, name={}", request.getBankName(), request.getAccountName());
+        String userId = securityUtil.getAuthenticatedUserId();
+        UserProfile userProfile = userProfileRepository.getReferenceById(userId);
+        Account newAccountEntity = accountMapper.createRequestToEntity(request, userProfile);
 
-        validatorService.validate(() -> new CreateAccountRequestValidator().assertValid(request, null));
+        Account savedAccount;
+        try {
+            savedAccount = accountRepository.saveAndFlush(newAccountEntity);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.UK_USER_PROFILE_BANK_NAME)) {
+                throw new AlreadyExistException("Account from this bank already exists.");
+            }
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.FK_ACCOUNTS_USER_PROFILE)) {
+                throw new NotFoundException("User profile not found for authenticated user");
+            }
+            throw e;
+        }
+        AccountProto response = accountMapper.entityToProto(savedAccount);
+        changeEventRepository.recordAccountChanges(ChangeType.CREATED, List.of(response));
+        accountListCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        UserProfile userProfile = findAuthenticatedUser();
-        BankNameProto requestedBankName = request.getBankName();
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
 
-        if (accountRepository.existsByUserProfileAndBankName(userProfile, convertProtoToEntityEnum(requestedBankName))) {
-            log.warn("User {} already has an account with bank {}", userProfile.getUserId(), requestedBankName);
-            throw new AlreadyExistException("Account from this bank already exists.");
+    @Override
+    @Transactional
+    public void createAccounts(CreateAccountsRequest request, StreamObserver<CreateAccountsResponse> responseObserver) {
+        UserProfile userProfile = findAuthenticatedUser();
+        Set<BankName> takenBankNames = EnumSet.noneOf(BankName.class);
+        takenBankNames.addAll(accountRepository.findBankNamesByUserId(userProfile.getUserId()));
+
+        CreateAccountResult[] results = new CreateAccountResult[request.getAccountsCount()];
+        List<Account> newAccounts = new ArrayList<>();
+        List<Integer> newAccountIndexes = new ArrayList<>();
+
+        for (int i = 0; i < request.getAccountsCount(); i++) {
+            CreateAccountRequest item = request.getAccounts(i);
+            try {
+                validatorService.validate(item);
+            } catch (ValidationException e) {
+                results[i] = failedResult(i, Code.INVALID_ARGUMENT, e.getMessage());
+                continue;
+            }
+            if (!takenBankNames.add(convertProtoToEntityEnum(item.getBankName()))) {
+                results[i] = failedResult(i, Code.ALREADY_EXISTS, "Account from this bank already exists.");
+                continue;
+            }
+            newAccounts.add(accountMapper.createRequestToEntity(item, userProfile));
+            newAccountIndexes.add(i);
         }
 
-        Account newAccountEntity = accountMapper.createRequestToEntity(request, userProfile);
-        Account savedAccount = accountRepository.save(newAccountEntity);
+        List<Account> savedAccounts;
+        try {
+            savedAccounts = accountRepository.saveAll(newAccounts);
+            accountRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // Счет из того же банка создан параллельным запросом после чтения takenBankNames
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.UK_USER_PROFILE_BANK_NAME)) {
+                throw new AlreadyExistException("Account from one of these banks already exists.");
+            }
+            throw e;
+        }
+        List<AccountProto> createdAccounts = new ArrayList<>(savedAccounts.size());
+        for (int i = 0; i < savedAccounts.size(); i++) {
+            int index = newAccountIndexes.get(i);
+            AccountProto account = accountMapper.entityToProto(savedAccounts.get(i));
+            createdAccounts.add(account);
+            results[index] = CreateAccountResult.newBuilder()
+                    .setIndex(index)
+                    .setAccount(account)
+                    .build();
+        }
+        if (!savedAccounts.isEmpty()) {
+            changeEventRepository.recordAccountChanges(ChangeType.CREATED, createdAccounts);
+            accountListCache.evict(userProfile.getUserId());
+            readYourWritesTracker.recordWrite(userProfile.getUserId());
+        }
 
-        log.info("Successfully created account with ID: {}", savedAccount.getAccountId());
-        responseObserver.onNext(accountMapper.entityToProto(savedAccount));
+        responseObserver.onNext(CreateAccountsResponse.newBuilder().addAllResults(List.of(results)).build());
         responseObserver.onCompleted();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public void getAccount(GetAccountRequest request, StreamObserver<com.cashpilot.account.proto.AccountProto> responseObserver) {
-        log.info("gRPC GetAccount request for ID: {}", request.getAccountId());
-
         String userId = securityUtil.getAuthenticatedUserId();
         UUID accountId = parseUuid(request.getAccountId());
-        Account accountEntity = findAccountByIdAndCheckOwnership(accountId, userId);
+        AccountProto account = findAccountByIdAndCheckOwnership(accountId, userId);
 
-        log.info("Successfully retrieved account ID: {}", accountId);
-        responseObserver.onNext(accountMapper.entityToProto(accountEntity));
+        responseObserver.onNext(account);
         responseObserver.onCompleted();
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public void listAccounts(ListAccountsRequest request, StreamObserver<ListAccountsResponse> responseObserver) {
-        log.info("gRPC ListAccounts request received");
-
+    public void batchGetAccounts(BatchGetAccountsRequest request, StreamObserver<BatchGetAccountsResponse> responseObserver) {
         String userId = securityUtil.getAuthenticatedUserId();
-        List<Account> userAccounts = accountRepository.findAllByUserProfile_UserId(userId);
+        List<UUID> accountIds = request.getAccountIdsList().stream()
+                .map(this::parseUuid)
+                .toList();
+
+        // Владелец проверяется в самом запросе, так что чужие счета сюда просто не попадают
+        Map<UUID, AccountProto> ownedAccounts = accountJdbcRepository
+                .findAllByAccountIdsAndUserId(new LinkedHashSet<>(accountIds), userId).stream()
+                .collect(Collectors.toMap(account -> UUID.fromString(account.getAccountId()), Function.identity()));
+
+        BatchGetAccountsResponse.Builder response = BatchGetAccountsResponse.newBuilder();
+        for (int i = 0; i < accountIds.size(); i++) {
+            AccountResult.Builder result = AccountResult.newBuilder().setAccountId(request.getAccountIds(i));
+            AccountProto account = ownedAccounts.get(accountIds.get(i));
+            if (account == null) {
+                result.setNotFound(true);
+            } else {
+                result.setAccount(account);
+            }
+            response.addResults(result);
+        }
 
-        List<AccountProto> protoAccounts = accountMapper.entitiesToProtos(userAccounts);
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
 
-        ListAccountsResponse response = ListAccountsResponse.newBuilder()
-                .addAllAccounts(protoAccounts)
-                .build();
+    @Override
+    public void listAccounts(ListAccountsRequest request, StreamObserver<ListAccountsResponse> responseObserver) {
+        String userId = securityUtil.getAuthenticatedUserId();
+        ListAccountsResponse response = isPaged(request)
+                ? loadAccountPage(userId, request)
+                : accountListCache.get(userId, this::loadAccountList).orElseThrow();
+        if (Etags.matches(request.getIfNoneMatch(), response.getEtag())) {
+            response = ListAccountsResponse.newBuilder().setEtag(response.getEtag()).setNotModified(true).build();
+        }
 
-        log.info("Successfully retrieved {} accounts for user", protoAccounts.size());
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void streamAccounts(StreamAccountsRequest request, StreamObserver<AccountProto> responseObserver) {
+        String userId = securityUtil.getAuthenticatedUserId();
+        new AccountPageStreamer(
+                (ServerCallStreamObserver<AccountProto>) responseObserver,
+                accountJdbcRepository,
+                userId,
+                resolvePageSize(request.getPageSize())
+        ).start();
+    }
+
     @Override
     @Transactional
     public void updateAccount(UpdateAccountRequest request, StreamObserver<com.cashpilot.account.proto.AccountProto> responseObserver) {
-        log.info("gRPC UpdateAccount request for ID: {}", request.getAccountId());
-
-        validatorService.validate(() -> new UpdateAccountRequestValidator().assertValid(request, null));
-        
         String userId = securityUtil.getAuthenticatedUserId();
         UUID accountId = parseUuid(request.getAccountId());
-        Account accountEntity = findAccountByIdAndCheckOwnership(accountId, userId);
+        Long expectedVersion = Etags.parseIfMatch(request.getIfMatch());
+        Account updatedAccount = accountRepository.updateAccountName(accountId, userId, request.getAccountName(), expectedVersion)
+                .orElseThrow(() -> missingOrModified(accountId, userId, expectedVersion));
+        AccountProto response = accountMapper.entityToProto(updatedAccount);
+        changeEventRepository.recordAccountChanges(ChangeType.UPDATED, List.of(response));
+        accountListCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        accountEntity.setAccountName(request.getAccountName());
-        Account updatedAccount = accountRepository.save(accountEntity);
-
-        log.info("Successfully updated account ID: {}", updatedAccount.getAccountId());
-        responseObserver.onNext(accountMapper.entityToProto(updatedAccount));
+        responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
     @Override
     @Transactional
     public void deleteAccount(DeleteAccountRequest request, StreamObserver<Empty> responseObserver) {
-        log.info("gRPC DeleteAccount request for ID: {}", request.getAccountId());
-
         String userId = securityUtil.getAuthenticatedUserId();
         UUID accountId = parseUuid(request.getAccountId());
+        Long expectedVersion = Etags.parseIfMatch(request.getIfMatch());
 
-        findAccountByIdAndCheckOwnership(accountId, userId);
-        accountRepository.deleteById(accountId);
+        int deleted = expectedVersion != null
+                ? accountRepository.deleteByAccountIdAndUserIdAndVersion(accountId, userId, expectedVersion)
+                : accountRepository.deleteByAccountIdAndUserId(accountId, userId);
+        if (deleted == 0) {
+            throw missingOrModified(accountId, userId, expectedVersion);
+        }
+        changeEventRepository.recordAccountDeleted(userId, accountId.toString());
+        accountListCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        log.info("Successfully deleted account ID: {}", request.getAccountId());
         responseObserver.onNext(Empty.getDefaultInstance());
         responseObserver.onCompleted();
     }
 
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_internal')")
+    public StreamObserver<AccountActivityEvent> recordAccountActivity(StreamObserver<RecordAccountActivityResponse> responseObserver) {
+        // Каждое сообщение уже проверено ValidatingServerInterceptor; здесь только складываем в буфер
+        return new StreamObserver<>() {
+
+            private long acceptedEvents;
+
+            @Override
+            public void onNext(AccountActivityEvent event) {
+                Instant occurredAt = Instant.ofEpochSecond(event.getOccurredAt().getSeconds(), event.getOccurredAt().getNanos());
+                accountActivityBuffer.record(parseUuid(event.getAccountId()), occurredAt);
+                acceptedEvents++;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("RecordAccountActivity cancelled after {} events", acceptedEvents);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(RecordAccountActivityResponse.newBuilder().setAcceptedEvents(acceptedEvents).build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+
+    private Optional<ListAccountsResponse> loadAccountList(String userId) {
+        List<AccountProto> accounts = accountJdbcRepository.findAllByUserId(userId);
+        return Optional.of(ListAccountsResponse.newBuilder()
+                .addAllAccounts(accounts)
+                .setEtag(Etags.ofAccounts(accounts))
+                .build());
+    }
+
+
+    private ListAccountsResponse loadAccountPage(String userId, ListAccountsRequest request) {
+        int pageSize = resolvePageSize(request.getPageSize());
+        UUID afterAccountId = request.getPageToken().isEmpty() ? null : parsePageToken(request.getPageToken());
+
+        List<AccountProto> accounts = accountJdbcRepository.findPageByUserId(userId, afterAccountId, pageSize + 1);
+        boolean hasMore = accounts.size() > pageSize;
+        List<AccountProto> pageAccounts = hasMore ? accounts.subList(0, pageSize) : accounts;
+
+        ListAccountsResponse.Builder response = ListAccountsResponse.newBuilder()
+                .addAllAccounts(pageAccounts)
+                .setEtag(Etags.ofAccounts(pageAccounts));
+        if (hasMore) {
+            response.setNextPageToken(pageAccounts.get(pageSize - 1).getAccountId());
+        }
+        return response.build();
+    }
+
 
     private UserProfile findAuthenticatedUser() {
         String userId = securityUtil.getAuthenticatedUserId();
@@ -133,14 +312,22 @@ public class AccountServiceImpl extends AccountServiceImplBase {
     }
 
 
-    private Account findAccountByIdAndCheckOwnership(UUID accountId, String userId) {
+    private AccountProto findAccountByIdAndCheckOwnership(UUID accountId, String userId) {
         log.debug("Finding account by ID: {} and checking ownership for user ID: {}", accountId, userId);
-        return accountRepository.findById(accountId)
-                .filter(account -> account.getUserProfile().getUserId().equals(userId))
+        return accountJdbcRepository.findByAccountIdAndUserId(accountId, userId)
                 .orElseThrow(() -> new NotFoundException("Account not found or access denied"));
     }
 
 
+    // Условная запись не прошла: отличаем чужой или удаленный счет от устаревшего etag
+    private RuntimeException missingOrModified(UUID accountId, String userId, Long expectedVersion) {
+        if (expectedVersion != null && accountRepository.existsByAccountIdAndUserId(accountId, userId)) {
+            return new EtagMismatchException("Account was modified, etag " + expectedVersion + " is stale.");
+        }
+        return new NotFoundException("Account not found or access denied");
+    }
+
+
     private UUID parseUuid(String uuidString) {
         log.debug("Parsing UUID from string: {}", uuidString);
         try {
@@ -150,6 +337,29 @@ public class AccountServiceImpl extends AccountServiceImplBase {
         }
     }
 
+    private static CreateAccountResult failedResult(int index, Code code, String message) {
+        return CreateAccountResult.newBuilder()
+                .setIndex(index)
+                .setError(Status.newBuilder().setCode(code.getNumber()).setMessage(message))
+                .build();
+    }
+
+    private UUID parsePageToken(String pageToken) {
+        try {
+            return UUID.fromString(pageToken);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page token.");
+        }
+    }
+
+    private static boolean isPaged(ListAccountsRequest request) {
+        return request.getPageSize() > 0 || !request.getPageToken().isEmpty();
+    }
+
+    private static int resolvePageSize(int requestedPageSize) {
+        return requestedPageSize > 0 ? requestedPageSize : DEFAULT_PAGE_SIZE;
+    }
+
     private BankName convertProtoToEntityEnum(BankNameProto protoEnum) {
         try {
             return BankName.valueOf(protoEnum.name());
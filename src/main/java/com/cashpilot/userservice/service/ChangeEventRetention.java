@@ -0,0 +1,31 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Deletes change events older than the configured retention. Mutations write to the outbox
+ * whether or not WatchChanges is enabled, so the purge runs independently of the publisher.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeEventRetention {
+
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final ChangeFeedProperties properties;
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1M")
+    public void purgeExpired() {
+        int deleted = changeEventRepository.deleteOlderThan(Instant.now().minus(properties.retention()));
+        if (deleted > 0) {
+            log.info("Purged {} change events older than {}", deleted, properties.retention());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.FeedPosition;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.StoredChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drains the change_events outbox in batches and fans each batch out to every open
+ * WatchChanges stream, so the table is polled once per instance rather than once per subscriber.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cashpilot.change-feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeFeedPublisher {
+
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final ChangeFeedProperties properties;
+    private final Set<ChangeFeedSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Counter publishedEvents;
+
+    // null до первого опроса
+    private volatile FeedPosition lastPublished;
+
+    public ChangeFeedPublisher(ChangeEventJdbcRepository changeEventRepository,
+                               ChangeFeedProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.changeEventRepository = changeEventRepository;
+        this.properties = properties;
+        this.publishedEvents = Counter.builder("cashpilot.change.feed.published")
+                .description("Change events fanned out to WatchChanges streams")
+                .register(meterRegistry);
+        Gauge.builder("cashpilot.change.feed.subscribers", subscriptions, Set::size)
+                .description("Open WatchChanges streams")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cashpilot.change-feed.poll-interval:200ms}")
+    public void publish() {
+        // Новые подписчики догоняют историю из таблицы сами, поэтому без подписчиков просто сдвигаем курсор.
+        // Подписчик, пришедший после повторной проверки, начнет догонять уже после запроса и ничего не пропустит
+        if (subscriptions.isEmpty()) {
+            FeedPosition latest = changeEventRepository.findLatestPosition();
+            if (subscriptions.isEmpty()) {
+                lastPublished = latest;
+                return;
+            }
+        }
+        List<StoredChangeEvent> batch;
+        do {
+            batch = changeEventRepository.findAfter(lastPublished, properties.batchSize());
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (ChangeFeedSubscription subscription : subscriptions) {
+                subscription.offer(batch);
+            }
+            lastPublished = batch.get(batch.size() - 1).position();
+            publishedEvents.increment(batch.size());
+        } while (batch.size() == properties.batchSize());
+    }
+
+    /**
+     * Returns {@code false} until the first poll has positioned the cursor; before that the
+     * publisher cannot tell which events a new subscriber would miss.
+     */
+    boolean subscribe(ChangeFeedSubscription subscription) {
+        if (lastPublished == null) {
+            return false;
+        }
+        subscriptions.add(subscription);
+        return true;
+    }
+
+    void unsubscribe(ChangeFeedSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+}
@@ -0,0 +1,47 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.changefeed.proto.ChangeEvent;
+import com.cashpilot.changefeed.proto.ChangeFeedServiceGrpc;
+import com.cashpilot.changefeed.proto.WatchChangesRequest;
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.config.SecurityUtil;
+import com.cashpilot.userservice.exception.NotFoundException;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.FeedPosition;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+
+@GrpcService
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "cashpilot.change-feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeFeedServiceImpl extends ChangeFeedServiceGrpc.ChangeFeedServiceImplBase {
+
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final ChangeFeedPublisher changeFeedPublisher;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final SecurityUtil securityUtil;
+
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_internal')")
+    public void watchChanges(WatchChangesRequest request, StreamObserver<ChangeEvent> responseObserver) {
+        log.debug("WatchChanges from {} after event {}", securityUtil.getAuthenticatedUserId(), request.getAfterEventId());
+        FeedPosition after = request.getAfterEventId() == 0
+                ? FeedPosition.START
+                : changeEventRepository.findPosition(request.getAfterEventId())
+                        .orElseThrow(() -> new NotFoundException(
+                                "Change event " + request.getAfterEventId() + " is no longer retained, resync required."));
+        new ChangeFeedSubscription(
+                (ServerCallStreamObserver<ChangeEvent>) responseObserver,
+                changeEventRepository,
+                changeFeedPublisher,
+                changeFeedProperties,
+                after
+        ).start();
+    }
+}
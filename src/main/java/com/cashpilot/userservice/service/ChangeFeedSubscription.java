@@ -0,0 +1,150 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.changefeed.proto.ChangeEvent;
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.FeedPosition;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.StoredChangeEvent;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One WatchChanges stream. It first replays stored events after the client's position straight
+ * from the outbox table, then serves batches fanned out by {@link ChangeFeedPublisher}. A
+ * subscriber that falls more than {@code subscriberBufferSize} events behind drops its buffer
+ * and catches up from the table again, so a slow consumer never holds unbounded memory.
+ */
+@Slf4j
+class ChangeFeedSubscription {
+
+    private final ServerCallStreamObserver<ChangeEvent> responseObserver;
+    private final ChangeEventJdbcRepository changeEventRepository;
+    private final ChangeFeedPublisher publisher;
+    private final ChangeFeedProperties properties;
+
+    // Guarded by this: filled by the publisher thread, drained by whichever thread runs drain()
+    private final ArrayDeque<StoredChangeEvent> buffered = new ArrayDeque<>();
+    private boolean catchingUp = true;
+    private int overflows;
+
+    // Serialises drain(): incremented by the publisher and onReady threads, and only the caller
+    // that moves it off zero runs the loop, repeating until every request it missed is handled
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    // Only touched inside drain(), which never runs concurrently with itself
+    private FeedPosition cursor;
+
+    private volatile boolean finished;
+
+    ChangeFeedSubscription(ServerCallStreamObserver<ChangeEvent> responseObserver,
+                           ChangeEventJdbcRepository changeEventRepository,
+                           ChangeFeedPublisher publisher,
+                           ChangeFeedProperties properties,
+                           FeedPosition after) {
+        this.responseObserver = responseObserver;
+        this.changeEventRepository = changeEventRepository;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.cursor = after;
+    }
+
+    void start() {
+        responseObserver.setOnCancelHandler(this::finish);
+        responseObserver.setOnReadyHandler(this::drain);
+        if (!publisher.subscribe(this)) {
+            finished = true;
+            responseObserver.onError(Status.UNAVAILABLE
+                    .withDescription("Change feed is starting, retry later.")
+                    .asRuntimeException());
+        }
+    }
+
+    void offer(List<StoredChangeEvent> batch) {
+        boolean live;
+        synchronized (this) {
+            if (buffered.size() + batch.size() > properties.subscriberBufferSize()) {
+                buffered.clear();
+                catchingUp = true;
+                overflows++;
+            } else {
+                buffered.addAll(batch);
+            }
+            live = !catchingUp;
+        }
+        // Догонять историю из БД в потоке публикатора нельзя: остальные подписчики ждали бы
+        if (live) {
+            drain();
+        }
+    }
+
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            try {
+                drainWhileReady();
+            } catch (RuntimeException e) {
+                log.error("WatchChanges failed at {}", cursor, e);
+                finish();
+                responseObserver.onError(Status.INTERNAL
+                        .withDescription("Внутренняя ошибка сервера.")
+                        .asRuntimeException());
+                return;
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainWhileReady() {
+        while (!finished && responseObserver.isReady()) {
+            int overflowsBeforeRead;
+            boolean replaying;
+            StoredChangeEvent next = null;
+            synchronized (this) {
+                replaying = catchingUp;
+                overflowsBeforeRead = overflows;
+                if (!replaying) {
+                    next = buffered.poll();
+                }
+            }
+            if (replaying) {
+                replayPage(overflowsBeforeRead);
+            } else if (next == null) {
+                return;
+            } else if (next.position().compareTo(cursor) > 0) {
+                emit(next);
+            }
+        }
+    }
+
+    private void replayPage(int overflowsBeforeRead) {
+        List<StoredChangeEvent> page = changeEventRepository.findAfter(cursor, properties.batchSize());
+        page.forEach(this::emit);
+        if (page.size() < properties.batchSize()) {
+            synchronized (this) {
+                // Если буфер переполнился во время чтения, сброшенные события могли не попасть в эту страницу
+                if (overflows == overflowsBeforeRead) {
+                    catchingUp = false;
+                }
+            }
+        }
+    }
+
+    private void emit(StoredChangeEvent stored) {
+        responseObserver.onNext(stored.event());
+        cursor = stored.position();
+    }
+
+    private void finish() {
+        finished = true;
+        publisher.unsubscribe(this);
+    }
+}
@@ -0,0 +1,56 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.userservice.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Etags are the decimal row version for single rows and a digest of (id, version) pairs for
+ * lists. Clients treat them as opaque strings.
+ */
+final class Etags {
+
+    private Etags() {
+    }
+
+    /**
+     * Returns the version an {@code if_match} refers to, or {@code null} when it is empty.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(ifMatch);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid if_match etag.");
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        return !ifNoneMatch.isEmpty() && ifNoneMatch.equals(etag);
+    }
+
+    /**
+     * Changes when an account is added, removed or modified, since every write bumps the version.
+     */
+    static String ofAccounts(List<AccountProto> accounts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (AccountProto account : accounts) {
+                digest.update(account.getAccountId().getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ':');
+                digest.update(account.getEtag().getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ';');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cashpilot.userservice.service;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Passes already serialized protobuf bytes through unchanged. gRPC reads the length of a
+ * {@link ByteArrayInputStream} directly, so the bytes are framed without another copy.
+ */
+enum PreEncodedMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+
+    INSTANCE;
+
+    @Override
+    public InputStream stream(byte[] value) {
+        return new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+        try {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to read message").withCause(e).asRuntimeException();
+        }
+    }
+}
@@ -1,31 +1,66 @@
 package com.cashpilot.userservice.service;
 
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.cache.EncodedMessage;
+import com.cashpilot.userservice.cache.EncodedUserProfileCache;
+import com.cashpilot.userservice.cache.UserProfileCache;
 import com.cashpilot.userservice.config.SecurityUtil;
+import com.cashpilot.userservice.datasource.ReadYourWritesTracker;
 import com.cashpilot.userservice.entity.UserProfile;
 import com.cashpilot.userservice.exception.AlreadyExistException;
+import com.cashpilot.userservice.exception.ConstraintViolations;
+import com.cashpilot.userservice.exception.EtagMismatchException;
 import com.cashpilot.userservice.exception.NotFoundException;
 import com.cashpilot.userservice.exception.ValidationException;
 import com.cashpilot.userservice.grpc.*;
 import com.cashpilot.userservice.mapper.UserProfileMapper;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.UserProfileJdbcRepository;
 import com.cashpilot.userservice.repository.UserProfileRepository;
 import com.google.protobuf.Empty;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 
 @GrpcService
 @RequiredArgsConstructor
 @Slf4j
 public class UserProfileServiceImpl extends UserProfileServiceGrpc.UserProfileServiceImplBase {
 
+    // Поле из update_mask -> колонка user_profiles; без маски пишутся все поля
+    private static final List<UpdatableField> UPDATABLE_FIELDS = List.of(
+            new UpdatableField("default_currency", "default_currency", UpdateUserProfileRequest::getDefaultCurrency),
+            new UpdatableField("balance_visibility", "balance_visibility", UpdateUserProfileRequest::getBalanceVisibility),
+            new UpdatableField("timezone", "timezone", UpdateUserProfileRequest::getTimezone),
+            new UpdatableField("language", "language", UpdateUserProfileRequest::getLanguage),
+            new UpdatableField("theme", "theme", UpdateUserProfileRequest::getTheme),
+            new UpdatableField("send_notification_to_gmail", "notify_on_budget_limit", UpdateUserProfileRequest::getSendNotificationToGmail),
+            new UpdatableField("onboarding_completed", "onboarding_completed", UpdateUserProfileRequest::getOnboardingCompleted)
+    );
+
     private final UserProfileRepository userProfileRepository;
+    private final UserProfileJdbcRepository userProfileJdbcRepository;
     private final UserProfileMapper userProfileMapper;
     private final SecurityUtil securityUtil;
-    private final ValidatorService validatorService;
+    private final UserProfileCache userProfileCache;
+    private final EncodedUserProfileCache encodedUserProfileCache;
+    private final AccountListCache accountListCache;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ChangeEventJdbcRepository changeEventRepository;
 
     @Override
     @Transactional
@@ -33,83 +68,180 @@ public class UserProfileServiceImpl extends UserProfileServiceGrpc.UserProfileSe
     public void createUserProfile(CreateUserProfileRequest request, StreamObserver<UserProfileResponse> responseObserver) {
         String userId = securityUtil.getAuthenticatedUserId();
 
-        log.info("Received request to create user profile for userId: {}", userId);
-        validatorService.validate(() -> new CreateUserProfileRequestValidator().assertValid(request, null));
-
-        if (userProfileRepository.existsById(userId)) {
-            log.warn("User profile already exists for userId: {}. Throwing AlreadyExistException.", userId);
-            throw new AlreadyExistException("User profile already exists with ID: " + userId);
-        }
-
         UserProfile newUserProfile = userProfileMapper.toEntity(request);
         newUserProfile.setUserId(userId);
 
-        UserProfile savedProfile = userProfileRepository.save(newUserProfile);
+        UserProfile savedProfile;
+        try {
+            savedProfile = userProfileRepository.saveAndFlush(newUserProfile);
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolationOf(e, ConstraintViolations.USER_PROFILES_PKEY)) {
+                throw e;
+            }
+            throw new AlreadyExistException("User profile already exists with ID: " + userId);
+        }
+        UserProfileResponse response = userProfileMapper.toResponse(savedProfile);
+        changeEventRepository.recordUserProfileChange(userId, ChangeType.CREATED, response);
+        userProfileCache.put(userId, response);
+        encodedUserProfileCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        log.info("Successfully created user profile for userId: {}", savedProfile.getUserId());
-        responseObserver.onNext(userProfileMapper.toResponse(savedProfile));
+        responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
     @Override
-    @Transactional(readOnly = true)
     @PreAuthorize("isAuthenticated()")
-    public void getUserProfile(Empty request, StreamObserver<UserProfileResponse> responseObserver) {
+    public void getUserProfile(GetUserProfileRequest request, StreamObserver<UserProfileResponse> responseObserver) {
         String userId = securityUtil.getAuthenticatedUserId();
-        log.info("Received request to get user profile for userId: {}", userId);
 
-        UserProfile profile = userProfileRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("User profile not found for userId: {}. Throwing NotFoundException.", userId);
-                    return new NotFoundException("User profile not found with ID: " + userId);
-                });
+        UserProfileResponse response = userProfileCache.get(userId, this::loadUserProfile)
+                .orElseThrow(() -> new NotFoundException("User profile not found with ID: " + userId));
+        if (Etags.matches(request.getIfNoneMatch(), response.getEtag())) {
+            response = UserProfileResponse.newBuilder().setEtag(response.getEtag()).setNotModified(true).build();
+        }
 
-        log.info("Successfully retrieved user profile for userId: {}", profile.getUserId());
-        responseObserver.onNext(userProfileMapper.toResponse(profile));
+        responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
-    @Override
-    @Transactional
+    /**
+     * GetUserProfile of {@code UserProfileServiceV2}, bound by {@link UserProfileServiceV2Binding}:
+     * a cache hit writes the stored bytes as they are.
+     */
     @PreAuthorize("isAuthenticated()")
-    public void updateUserProfile(UpdateUserProfileRequest request, StreamObserver<UserProfileResponse> responseObserver) {
+    public void getUserProfileV2(GetUserProfileRequest request, StreamObserver<byte[]> responseObserver) {
         String userId = securityUtil.getAuthenticatedUserId();
 
-        log.info("Received request to update user profile for userId: {}", userId);
-        validatorService.validate(() -> new UpdateUserProfileRequestValidator().assertValid(request, null));
+        EncodedMessage encoded = encodedUserProfileCache.get(userId, this::loadEncodedUserProfile)
+                .orElseThrow(() -> new NotFoundException("User profile not found with ID: " + userId));
+        byte[] body = Etags.matches(request.getIfNoneMatch(), encoded.etag())
+                ? UserProfileResponseV2.newBuilder().setEtag(encoded.etag()).setNotModified(true).build().toByteArray()
+                : encoded.bytes();
 
-        UserProfile existingProfile = userProfileRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("User profile not found for update, userId: {}. Throwing NotFoundException.", userId);
-                    return new NotFoundException("User profile not found to update");
-                });
+        responseObserver.onNext(body);
+        responseObserver.onCompleted();
+    }
 
-        userProfileMapper.updateEntityFromRequest(request, existingProfile);
-        UserProfile updatedProfile = userProfileRepository.save(existingProfile);
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_internal')")
+    public void batchGetUserProfiles(BatchGetUserProfilesRequest request, StreamObserver<BatchGetUserProfilesResponse> responseObserver) {
+        String callerId = securityUtil.getAuthenticatedUserId();
+        log.debug("BatchGetUserProfiles from {} for {} users", callerId, request.getUserIdsCount());
+
+        List<String> userIds = request.getUserIdsList();
+        Map<String, UserProfileResponse> profiles = userProfileJdbcRepository.findResponsesByIds(Set.copyOf(userIds)).stream()
+                .collect(Collectors.toMap(UserProfileResponse::getUserId, Function.identity()));
+
+        BatchGetUserProfilesResponse.Builder response = BatchGetUserProfilesResponse.newBuilder();
+        for (String userId : userIds) {
+            UserProfileResult.Builder result = UserProfileResult.newBuilder().setUserId(userId);
+            UserProfileResponse profile = profiles.get(userId);
+            if (profile == null) {
+                result.setNotFound(true);
+            } else {
+                result.setProfile(profile);
+            }
+            response.addResults(result);
+        }
 
-        log.info("Successfully updated user profile for userId: {}", updatedProfile.getUserId());
-        responseObserver.onNext(userProfileMapper.toResponse(updatedProfile));
+        responseObserver.onNext(response.build());
         responseObserver.onCompleted();
     }
 
     @Override
     @Transactional
     @PreAuthorize("isAuthenticated()")
-    public void deleteUserProfile(Empty request, StreamObserver<Empty> responseObserver) {
+    public void updateUserProfile(UpdateUserProfileRequest request, StreamObserver<UserProfileResponse> responseObserver) {
         String userId = securityUtil.getAuthenticatedUserId();
-        log.info("Received request to delete user profile for userId: {}", userId);
 
+        Long expectedVersion = Etags.parseIfMatch(request.getIfMatch());
+        UserProfileResponse response = userProfileJdbcRepository
+                .updateColumns(userId, resolveUpdatedColumns(request), expectedVersion)
+                .orElseThrow(() -> missingOrModified(userId, expectedVersion, "User profile not found to update"));
+        changeEventRepository.recordUserProfileChange(userId, ChangeType.UPDATED, response);
+        userProfileCache.put(userId, response);
+        encodedUserProfileCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        UserProfile profile = userProfileRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("Cannot delete. User profile not found for userId: {}. Throwing NotFoundException.", userId);
-                    return new NotFoundException("Cannot delete. User profile not found with ID: " + userId);
-                });
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("isAuthenticated()")
+    public void deleteUserProfile(DeleteUserProfileRequest request, StreamObserver<Empty> responseObserver) {
+        String userId = securityUtil.getAuthenticatedUserId();
 
-        userProfileRepository.delete(profile);
+        Long expectedVersion = Etags.parseIfMatch(request.getIfMatch());
+        int deleted = expectedVersion != null
+                ? userProfileRepository.deleteByUserIdAndVersion(userId, expectedVersion)
+                : userProfileRepository.deleteByUserId(userId);
+        if (deleted == 0) {
+            throw missingOrModified(userId, expectedVersion, "Cannot delete. User profile not found with ID: " + userId);
+        }
+        // Счета удаляются каскадом; отдельные события по ним не пишем, DELETED профиля их подразумевает
+        changeEventRepository.recordUserProfileChange(userId, ChangeType.DELETED, null);
+        userProfileCache.evict(userId);
+        encodedUserProfileCache.evict(userId);
+        accountListCache.evict(userId);
+        readYourWritesTracker.recordWrite(userId);
 
-        log.info("Successfully deleted user profile for userId: {}", userId);
         responseObserver.onNext(Empty.getDefaultInstance());
         responseObserver.onCompleted();
     }
+
+
+    private Optional<UserProfileResponse> loadUserProfile(String userId) {
+        return userProfileJdbcRepository.findResponseById(userId);
+    }
+
+    private Optional<EncodedMessage> loadEncodedUserProfile(String userId) {
+        return userProfileJdbcRepository.findResponseV2ById(userId)
+                .map(profile -> new EncodedMessage(profile.getEtag(), profile.toByteArray()));
+    }
+
+
+    // Условная запись не прошла: различаем отсутствующий профиль и устаревший etag вторым запросом только в этом случае
+    private RuntimeException missingOrModified(String userId, Long expectedVersion, String notFoundMessage) {
+        if (expectedVersion != null && userProfileRepository.existsById(userId)) {
+            return new EtagMismatchException("User profile was modified, etag " + expectedVersion + " is stale.");
+        }
+        return new NotFoundException(notFoundMessage);
+    }
+
+
+    private static Map<String, Object> resolveUpdatedColumns(UpdateUserProfileRequest request) {
+        List<UpdatableField> fields = request.hasUpdateMask()
+                ? request.getUpdateMask().getPathsList().stream().map(UserProfileServiceImpl::updatableField).toList()
+                : UPDATABLE_FIELDS;
+        if (fields.isEmpty()) {
+            throw new ValidationException("update_mask must list at least one field.");
+        }
+
+        Map<String, Object> columnValues = new LinkedHashMap<>();
+        for (UpdatableField field : fields) {
+            String path = field.path();
+            Object value = field.value().apply(request);
+            // Правила PGV пропускают пустые строки, чтобы не мешать полям вне маски
+            if (value instanceof String text && text.isEmpty()) {
+                throw new ValidationException("Field " + path + " must not be empty.");
+            }
+            columnValues.put(field.column(), value);
+        }
+        return columnValues;
+    }
+
+
+    private static UpdatableField updatableField(String path) {
+        return UPDATABLE_FIELDS.stream()
+                .filter(field -> field.path().equals(path))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("update_mask contains an unknown field: " + path));
+    }
+
+
+    private record UpdatableField(String path, String column, Function<UpdateUserProfileRequest, Object> value) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.userservice.grpc.GetUserProfileRequest;
+import com.cashpilot.userservice.grpc.UserProfileServiceV2Grpc;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import lombok.RequiredArgsConstructor;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+/**
+ * Binds {@code UserProfileServiceV2} by hand: the generated {@code bindService()} is final and
+ * fixes the response marshaller to the message type, while here the response is the cached
+ * encoded bytes. The schema descriptor is kept, so reflection and the HTTP gateway still see
+ * {@code UserProfileResponseV2}.
+ */
+@GrpcService
+@RequiredArgsConstructor
+public class UserProfileServiceV2Binding implements BindableService {
+
+    private final UserProfileServiceImpl userProfileService;
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        MethodDescriptor<GetUserProfileRequest, byte[]> getUserProfile = UserProfileServiceV2Grpc.getGetUserProfileMethod()
+                .toBuilder(ProtoUtils.marshaller(GetUserProfileRequest.getDefaultInstance()), PreEncodedMarshaller.INSTANCE)
+                .build();
+        ServiceDescriptor serviceDescriptor = ServiceDescriptor.newBuilder(UserProfileServiceV2Grpc.SERVICE_NAME)
+                .setSchemaDescriptor(UserProfileServiceV2Grpc.getServiceDescriptor().getSchemaDescriptor())
+                .addMethod(getUserProfile)
+                .build();
+        // Вызов идет через прокси userProfileService, поэтому @PreAuthorize на методе срабатывает
+        return ServerServiceDefinition.builder(serviceDescriptor)
+                .addMethod(getUserProfile, ServerCalls.asyncUnaryCall(userProfileService::getUserProfileV2))
+                .build();
+    }
+}
@@ -1,6 +1,10 @@
 package com.cashpilot.userservice.service;
 
 import com.cashpilot.userservice.exception.ValidationException;
+import com.google.protobuf.Message;
+import io.envoyproxy.pgv.ReflectiveValidatorIndex;
+import io.envoyproxy.pgv.Validator;
+import io.envoyproxy.pgv.ValidatorIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -8,16 +12,15 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class ValidatorService {
 
-    @FunctionalInterface
-    public interface ValidatorAction {
-        void run() throws io.envoyproxy.pgv.ValidationException;
-    }
+    // Генерированные PGV-валидаторы создаются один раз на тип сообщения и переиспользуются
+    private final ValidatorIndex validatorIndex = new ReflectiveValidatorIndex();
 
-    public void validate(ValidatorAction action) {
+    public void validate(Message message) {
+        Validator<Message> validator = validatorIndex.validatorFor(message.getClass());
         try {
-            action.run();
+            validator.assertValid(message);
         } catch (io.envoyproxy.pgv.ValidationException e) {
-            log.warn("Validation failed: {}", e.getMessage(), e);
+            log.debug("Validation failed: {}", e.getMessage());
             throw new ValidationException(e.getMessage());
         }
     }
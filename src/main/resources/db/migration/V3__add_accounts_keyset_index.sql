@@ -0,0 +1,5 @@
+-- Индекс для keyset-пагинации: WHERE user_profile_id = ? AND account_id > ? ORDER BY account_id
+CREATE INDEX idx_accounts_user_profile_id_account_id ON accounts (user_profile_id, account_id);
+
+-- Составной индекс покрывает все запросы, которые обслуживал одноколоночный
+DROP INDEX idx_accounts_user_profile_id;
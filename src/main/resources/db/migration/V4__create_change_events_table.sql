@@ -0,0 +1,14 @@
+-- Transactional outbox: событие пишется в той же транзакции, что и изменение профиля или счета
+CREATE TABLE change_events (
+                               event_id BIGSERIAL PRIMARY KEY,
+                               user_id VARCHAR(255) NOT NULL,
+                               entity_type VARCHAR(20) NOT NULL,
+                               entity_id VARCHAR(255) NOT NULL,
+                               change_type VARCHAR(10) NOT NULL,
+                               -- Сериализованный protobuf (UserProfileResponse или AccountProto); NULL для DELETED
+                               payload BYTEA,
+                               created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Для очистки старых событий по сроку хранения
+CREATE INDEX idx_change_events_created_at ON change_events (created_at);
@@ -0,0 +1,4 @@
+-- Версия строки для оптимистичных блокировок; отдается клиентам как etag
+ALTER TABLE user_profiles ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
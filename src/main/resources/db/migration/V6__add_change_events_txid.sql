@@ -0,0 +1,8 @@
+-- Порядок выдачи событий - порядок транзакций, а не event_id: транзакция может взять event_id раньше
+-- другой и закоммититься позже нее. Событие отдается, только когда его транзакция старше
+-- pg_snapshot_xmin, то есть все транзакции с меньшим txid уже завершены.
+-- Существующие строки получают txid этой миграции и сохраняют порядок по event_id внутри него.
+ALTER TABLE change_events
+    ADD COLUMN txid BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint);
+
+CREATE INDEX idx_change_events_txid_event_id ON change_events (txid, event_id);
@@ -0,0 +1,76 @@
+package com.cashpilot.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты для SingleFlight")
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String> singleFlight = new SingleFlight<>("test", meterRegistry);
+
+    @Test
+    @DisplayName("load: должен выполнить один запрос для параллельных вызовов с одним ключом")
+    void load_shouldCoalesceConcurrentCalls() throws Exception {
+        // Given
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load("user-1", key -> {
+                queries.incrementAndGet();
+                leaderStarted.countDown();
+                await(releaseLeader);
+                return "profile";
+            }), executor);
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.load("user-1", key -> {
+                queries.incrementAndGet();
+                return "other";
+            }), executor);
+            while (meterRegistry.counter("cashpilot.single.flight.calls", "name", "test", "result", "coalesced").count() == 0) {
+                Thread.onSpinWait();
+            }
+            releaseLeader.countDown();
+
+            // Then
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("profile");
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("profile");
+            assertThat(queries).hasValue(1);
+        }
+    }
+
+    @Test
+    @DisplayName("load: не должен хранить результат после завершения запроса")
+    void load_shouldNotReuseCompletedResult() {
+        // Given
+        singleFlight.load("user-1", key -> "before");
+
+        // When
+        String result = singleFlight.load("user-1", key -> "after");
+
+        // Then
+        assertThat(result).isEqualTo("after");
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cashpilot.userservice.cache;
+
+import com.cashpilot.userservice.config.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Тесты для UserScopedCache")
+class UserScopedCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserScopedCache<String> cache = new UserScopedCache<>(
+            "test", new CacheProperties.Spec(true, 100, Duration.ofMinutes(1)), meterRegistry) {
+    };
+
+    @Test
+    @DisplayName("get: должен учесть вызов, присоединившийся к идущей загрузке, как coalesced")
+    void get_shouldCountJoinedLoad_whenCacheEnabled() throws Exception {
+        // Given
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        CompletableFuture<Optional<String>> leader = new CompletableFuture<>();
+        CompletableFuture<Optional<String>> follower = new CompletableFuture<>();
+        Thread.ofPlatform().start(() -> leader.complete(cache.get("user-1", key -> {
+            queries.incrementAndGet();
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return Optional.of("profile");
+        })));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        Thread.ofPlatform().start(() -> follower.complete(cache.get("user-1", key -> {
+            queries.incrementAndGet();
+            return Optional.of("other");
+        })));
+        while (callCount("coalesced") == 0) {
+            Thread.onSpinWait();
+        }
+        releaseLeader.countDown();
+
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS)).contains("profile");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).contains("profile");
+        assertThat(queries).hasValue(1);
+        assertThat(callCount("loaded")).isEqualTo(1);
+        assertThat(callCount("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get: не должен кэшировать ошибку загрузки")
+    void get_shouldLoadAgain_whenPreviousLoadFailed() {
+        // Given
+        assertThatThrownBy(() -> cache.get("user-1", key -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        Optional<String> result = cache.get("user-1", key -> Optional.of("profile"));
+
+        // Then
+        assertThat(result).contains("profile");
+        assertThat(callCount("loaded")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("get: не должен считать попадание в кэш загрузкой или присоединением")
+    void get_shouldNotCountCacheHits() {
+        // Given
+        cache.get("user-1", key -> Optional.of("profile"));
+
+        // When
+        Optional<String> result = cache.get("user-1", key -> Optional.of("other"));
+
+        // Then
+        assertThat(result).contains("profile");
+        assertThat(callCount("loaded")).isEqualTo(1);
+        assertThat(callCount("coalesced")).isZero();
+    }
+
+
+    private double callCount(String result) {
+        return meterRegistry.counter("cashpilot.single.flight.calls", "name", "test", "result", result).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cashpilot.userservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для CachingAuthenticationManager")
+class CachingAuthenticationManagerTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private AuthenticationManager delegate;
+
+    private MutableClock clock;
+    private CachingAuthenticationManager authenticationManager;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        authenticationManager = new CachingAuthenticationManager(delegate, 100, new SimpleMeterRegistry(), clock);
+    }
+
+
+    @Test
+    @DisplayName("authenticate: должен вернуть закешированный токен без повторной проверки подписи")
+    void authenticate_shouldSkipDelegate_whenTokenIsCached() {
+        // Given
+        JwtAuthenticationToken verified = jwtAuthentication(NOW.plus(Duration.ofMinutes(5)));
+        when(delegate.authenticate(any())).thenReturn(verified);
+
+        // When
+        Authentication first = authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN));
+        Authentication second = authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN));
+
+        // Then
+        assertThat(first).isSameAs(verified);
+        assertThat(second).isSameAs(verified);
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("authenticate: не должен отдавать запись из кеша после exp токена")
+    void authenticate_shouldVerifyAgain_whenCachedTokenExpired() {
+        // Given
+        when(delegate.authenticate(any()))
+                .thenReturn(jwtAuthentication(NOW.plus(Duration.ofMinutes(1))))
+                .thenThrow(new BadCredentialsException("Jwt expired"));
+        authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN));
+
+        // When
+        clock.advance(Duration.ofMinutes(2));
+
+        // Then
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN)));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("authenticate: не должен кешировать токен, не прошедший проверку")
+    void authenticate_shouldNotCacheFailedVerification() {
+        // Given
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Invalid signature"));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN)));
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationManager.authenticate(new BearerTokenAuthenticationToken(TOKEN)));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("authenticate: должен передавать не-bearer аутентификацию делегату без кеширования")
+    void authenticate_shouldPassThroughNonBearerAuthentication() {
+        // Given
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "password");
+        when(delegate.authenticate(authentication)).thenReturn(authentication);
+
+        // When
+        authenticationManager.authenticate(authentication);
+        authenticationManager.authenticate(authentication);
+
+        // Then
+        verify(delegate, times(2)).authenticate(authentication);
+    }
+
+
+    private static JwtAuthenticationToken jwtAuthentication(Instant expiresAt) {
+        Jwt jwt = Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .subject("user-1")
+                .issuedAt(NOW)
+                .expiresAt(expiresAt)
+                .build();
+        return new JwtAuthenticationToken(jwt);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
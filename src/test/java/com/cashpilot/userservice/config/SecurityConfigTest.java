@@ -0,0 +1,83 @@
+package com.cashpilot.userservice.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Тесты для SecurityConfig")
+class SecurityConfigTest {
+
+    private static final String ISSUER = "https://auth.cashpilot.test/realms/cashpilot";
+
+    private final SecurityConfig securityConfig = new SecurityConfig();
+
+    @Test
+    @DisplayName("jwtDecoder: должен принимать токены, подписанные алгоритмом из jws-algorithms")
+    void jwtDecoder_shouldAcceptConfiguredAlgorithm() throws Exception {
+        // Given
+        ECKey key = new ECKeyGenerator(Curve.P_256).keyID("ec-key").generate();
+        JwtDecoder decoder = securityConfig.jwtDecoder(
+                new ImmutableJWKSet<SecurityContext>(new JWKSet(key.toPublicJWK())), properties(List.of("ES256")));
+
+        // When
+        Jwt jwt = decoder.decode(signedToken(key));
+
+        // Then
+        assertThat(jwt.getSubject()).isEqualTo("user-1");
+    }
+
+    @Test
+    @DisplayName("jwtDecoder: должен отклонить токен, подписанный алгоритмом не из jws-algorithms")
+    void jwtDecoder_shouldRejectAlgorithmNotConfigured() throws Exception {
+        // Given
+        ECKey key = new ECKeyGenerator(Curve.P_256).keyID("ec-key").generate();
+        JwtDecoder decoder = securityConfig.jwtDecoder(
+                new ImmutableJWKSet<SecurityContext>(new JWKSet(key.toPublicJWK())), properties(List.of("RS256")));
+        String token = signedToken(key);
+
+        // When & Then
+        assertThrows(JwtException.class, () -> decoder.decode(token));
+    }
+
+
+    private static OAuth2ResourceServerProperties properties(List<String> algorithms) {
+        OAuth2ResourceServerProperties properties = new OAuth2ResourceServerProperties();
+        properties.getJwt().setIssuerUri(ISSUER);
+        properties.getJwt().setJwsAlgorithms(algorithms);
+        return properties;
+    }
+
+    private static String signedToken(ECKey key) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("user-1")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(300)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new ECDSASigner(key));
+        return jwt.serialize();
+    }
+}
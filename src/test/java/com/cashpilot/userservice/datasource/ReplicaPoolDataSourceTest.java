@@ -0,0 +1,102 @@
+package com.cashpilot.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для ReplicaPoolDataSource")
+class ReplicaPoolDataSourceTest {
+
+    @Mock
+    private HikariDataSource firstReplica;
+    @Mock
+    private HikariDataSource secondReplica;
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private Connection firstConnection;
+    @Mock
+    private Connection secondConnection;
+    @Mock
+    private Connection primaryConnection;
+
+    private ReplicaPoolDataSource replicaPool;
+
+    @BeforeEach
+    void setUp() {
+        replicaPool = new ReplicaPoolDataSource(List.of(firstReplica, secondReplica), primary, Duration.ofMinutes(1));
+    }
+
+
+    @Test
+    @DisplayName("getConnection: должен чередовать реплики по кругу")
+    void getConnection_shouldRoundRobinReplicas() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+
+        // When & Then
+        assertThat(replicaPool.getConnection()).isSameAs(firstConnection);
+        assertThat(replicaPool.getConnection()).isSameAs(secondConnection);
+        assertThat(replicaPool.getConnection()).isSameAs(firstConnection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    @DisplayName("getConnection: должен исключить недоступную реплику и не обращаться к ней до истечения eject-for")
+    void getConnection_shouldEjectFailingReplica() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+
+        // When
+        Connection first = replicaPool.getConnection();
+        Connection second = replicaPool.getConnection();
+        Connection third = replicaPool.getConnection();
+
+        // Then
+        assertThat(List.of(first, second, third)).containsOnly(secondConnection);
+        verify(firstReplica, times(1)).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    @DisplayName("getConnection: должен вернуть соединение с основной БД, если все реплики недоступны")
+    void getConnection_shouldFallBackToPrimary_whenAllReplicasFail() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When & Then
+        assertThat(replicaPool.getConnection()).isSameAs(primaryConnection);
+        assertThat(replicaPool.getConnection()).isSameAs(primaryConnection);
+        verify(firstReplica, times(1)).getConnection();
+        verify(secondReplica, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("getConnection: должен выбросить SQLFeatureNotSupportedException при передаче учетных данных")
+    void getConnection_shouldRejectExplicitCredentials() {
+        // When & Then
+        assertThrows(SQLFeatureNotSupportedException.class, () -> replicaPool.getConnection("user", "password"));
+        verifyNoInteractions(firstReplica, secondReplica, primary);
+    }
+}
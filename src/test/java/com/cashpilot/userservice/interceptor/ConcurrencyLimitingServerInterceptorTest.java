@@ -0,0 +1,97 @@
+package com.cashpilot.userservice.interceptor;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для ConcurrencyLimitingServerInterceptor")
+class ConcurrencyLimitingServerInterceptorTest {
+
+    @Mock
+    private ServerCall<String, String> firstCall;
+    @Mock
+    private ServerCall<String, String> secondCall;
+    @Mock
+    private ServerCallHandler<String, String> next;
+    @Mock
+    private ServerCall.Listener<String> firstListener;
+    @Mock
+    private ServerCall.Listener<String> secondListener;
+    @Mock
+    private MethodDescriptor.Marshaller<String> marshaller;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitingServerInterceptor interceptor =
+            new ConcurrencyLimitingServerInterceptor(1, Duration.ZERO, meterRegistry);
+
+    @Test
+    @DisplayName("onHalfClose: должен сразу отклонить unary-вызов, если все разрешения заняты")
+    void onHalfClose_shouldRejectUnaryCallImmediately_whenNoPermitLeft() {
+        // Given
+        Metadata headers = new Metadata();
+        when(firstCall.getMethodDescriptor()).thenReturn(method(MethodDescriptor.MethodType.UNARY));
+        when(secondCall.getMethodDescriptor()).thenReturn(method(MethodDescriptor.MethodType.UNARY));
+        when(next.startCall(firstCall, headers)).thenReturn(firstListener);
+        when(next.startCall(secondCall, headers)).thenReturn(secondListener);
+
+        ServerCall.Listener<String> first = interceptor.interceptCall(firstCall, headers, next);
+        ServerCall.Listener<String> second = interceptor.interceptCall(secondCall, headers, next);
+        // Второй вызов приходит, пока первый еще выполняет обработчик
+        doAnswer(invocation -> {
+            second.onHalfClose();
+            return null;
+        }).when(firstListener).onHalfClose();
+        ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+
+        // When
+        first.onHalfClose();
+
+        // Then
+        verify(secondListener, never()).onHalfClose();
+        verify(secondCall).close(statusCaptor.capture(), any(Metadata.class));
+        assertThat(statusCaptor.getValue().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(meterRegistry.counter("grpc.server.calls.shed", "reason", "call_permit").count()).isEqualTo(1);
+        verify(firstCall, never()).close(any(), any());
+    }
+
+    @Test
+    @DisplayName("interceptCall: не должен ограничивать потоковые вызовы")
+    void interceptCall_shouldPassStreamingCallsThrough() {
+        // Given
+        Metadata headers = new Metadata();
+        when(firstCall.getMethodDescriptor()).thenReturn(method(MethodDescriptor.MethodType.SERVER_STREAMING));
+        when(next.startCall(firstCall, headers)).thenReturn(firstListener);
+
+        // When
+        ServerCall.Listener<String> listener = interceptor.interceptCall(firstCall, headers, next);
+
+        // Then
+        assertThat(listener).isSameAs(firstListener);
+    }
+
+
+    private MethodDescriptor<String, String> method(MethodDescriptor.MethodType type) {
+        return MethodDescriptor.<String, String>newBuilder()
+                .setType(type)
+                .setFullMethodName("test.Service/Method")
+                .setRequestMarshaller(marshaller)
+                .setResponseMarshaller(marshaller)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cashpilot.userservice.interceptor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты для GradientConcurrencyLimit")
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("tryAcquire: должен отклонять вызовы сверх текущего лимита")
+    void tryAcquire_shouldRejectAboveLimit() {
+        // Given
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 10, 0.2, Duration.ofMillis(100), 1);
+
+        // When
+        boolean first = limit.tryAcquire();
+        boolean second = limit.tryAcquire();
+        boolean third = limit.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("release: должен снижать лимит, когда вызовы замедляются относительно базовой задержки")
+    void release_shouldShrinkLimit_whenLatencyGrows() {
+        // Given
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 2, 100, 0.5, Duration.ofMillis(100), 1);
+        long now = System.nanoTime();
+        now = runSaturatedWindow(limit, now, FAST);
+        int limitAtBaseline = limit.getLimit();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            now = runSaturatedWindow(limit, now, SLOW);
+        }
+
+        // Then
+        assertThat(limitAtBaseline).isGreaterThanOrEqualTo(10);
+        assertThat(limit.getLimit()).isLessThan(limitAtBaseline);
+    }
+
+
+    // Занимает весь лимит и завершает вызовы с заданной задержкой в конце окна
+    private static long runSaturatedWindow(GradientConcurrencyLimit limit, long now, long rttNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        long windowEnd = now + WINDOW;
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos, windowEnd);
+        }
+        return windowEnd;
+    }
+}
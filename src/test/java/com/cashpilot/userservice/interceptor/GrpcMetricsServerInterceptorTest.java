@@ -0,0 +1,124 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.cashpilot.userservice.metrics.RpcStatsDataSource;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для GrpcMetricsServerInterceptor")
+class GrpcMetricsServerInterceptorTest {
+
+    @Mock
+    private ServerCall<String, String> call;
+    @Mock
+    private DataSource targetDataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private MethodDescriptor.Marshaller<String> marshaller;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GrpcMetricsServerInterceptor interceptor = new GrpcMetricsServerInterceptor(meterRegistry);
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new RpcStatsDataSource(targetDataSource);
+        when(targetDataSource.getConnection()).thenReturn(connection);
+    }
+
+
+    @Test
+    @DisplayName("interceptCall: должен записать число запросов к БД unary-вызова при его закрытии")
+    void interceptCall_shouldCountStatementsOfUnaryCall() {
+        // Given
+        when(call.getMethodDescriptor()).thenReturn(method(MethodDescriptor.MethodType.UNARY));
+        ServerCallHandler<String, String> handler = (serverCall, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onHalfClose() {
+                executeStatements(2);
+                serverCall.close(Status.OK, new Metadata());
+            }
+        };
+
+        // When
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, new Metadata(), handler);
+        listener.onMessage("request");
+        listener.onHalfClose();
+
+        // Then
+        DistributionSummary statements = meterRegistry.get("grpc.server.db.statements").summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("interceptCall: должен учитывать запросы потокового вызова из onReady, а не только из onHalfClose")
+    void interceptCall_shouldCountStatementsOfStreamingCallAcrossCallbacks() {
+        // Given
+        when(call.getMethodDescriptor()).thenReturn(method(MethodDescriptor.MethodType.SERVER_STREAMING));
+        ServerCallHandler<String, String> handler = (serverCall, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onHalfClose() {
+                executeStatements(1);
+            }
+
+            @Override
+            public void onReady() {
+                executeStatements(2);
+                serverCall.close(Status.OK, new Metadata());
+            }
+        };
+
+        // When
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, new Metadata(), handler);
+        listener.onMessage("request");
+        listener.onHalfClose();
+        // Запросы вне обратных вызовов этого RPC ему не приписываются
+        executeStatements(5);
+        listener.onReady();
+
+        // Then
+        DistributionSummary statements = meterRegistry.get("grpc.server.db.statements").summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(3);
+    }
+
+
+    private void executeStatements(int count) {
+        try (Connection pooled = dataSource.getConnection()) {
+            for (int i = 0; i < count; i++) {
+                pooled.prepareStatement("SELECT 1");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MethodDescriptor<String, String> method(MethodDescriptor.MethodType type) {
+        return MethodDescriptor.<String, String>newBuilder()
+                .setType(type)
+                .setFullMethodName("test.Service/Method")
+                .setRequestMarshaller(marshaller)
+                .setResponseMarshaller(marshaller)
+                .build();
+    }
+}
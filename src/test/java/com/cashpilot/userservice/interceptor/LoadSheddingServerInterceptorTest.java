@@ -0,0 +1,82 @@
+package com.cashpilot.userservice.interceptor;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для LoadSheddingServerInterceptor")
+class LoadSheddingServerInterceptorTest {
+
+    @Mock
+    private ServerCall<String, String> call;
+    @Mock
+    private ServerCallHandler<String, String> next;
+
+    private final LoadSheddingServerInterceptor interceptor = new LoadSheddingServerInterceptor(
+            new UserRateLimiter(1, 1, 1000, Duration.ofMinutes(10)),
+            Set.of("SCOPE_internal"),
+            null,
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    @DisplayName("interceptCall: должен отклонить вызов пользователя с RESOURCE_EXHAUSTED после исчерпания корзины")
+    void interceptCall_shouldRejectUser_whenBucketIsEmpty() {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("user-1", null, "SCOPE_user"));
+        Metadata headers = new Metadata();
+        ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+
+        // When
+        interceptor.interceptCall(call, headers, next);
+        interceptor.interceptCall(call, headers, next);
+
+        // Then
+        verify(next, times(1)).startCall(call, headers);
+        verify(call).close(statusCaptor.capture(), any(Metadata.class));
+        assertThat(statusCaptor.getValue().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+    }
+
+    @Test
+    @DisplayName("interceptCall: не должен ограничивать вызовы с authority SCOPE_internal пользовательской корзиной")
+    void interceptCall_shouldNotRateLimitInternalCallers() {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("billing-service", null, "SCOPE_internal"));
+        Metadata headers = new Metadata();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            interceptor.interceptCall(call, headers, next);
+        }
+
+        // Then
+        verify(next, times(5)).startCall(call, headers);
+        verify(call, never()).close(any(), any());
+    }
+}
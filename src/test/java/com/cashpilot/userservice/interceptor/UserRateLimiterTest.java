@@ -0,0 +1,54 @@
+package com.cashpilot.userservice.interceptor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты для UserRateLimiter")
+class UserRateLimiterTest {
+
+    private final UserRateLimiter limiter = new UserRateLimiter(10, 3, 1000, Duration.ofMinutes(10));
+
+    @Test
+    @DisplayName("tryAcquire: должен пропустить burst запросов подряд и отклонить следующий")
+    void tryAcquire_shouldRejectAfterBurst() {
+        // Given
+        long now = System.nanoTime();
+
+        // When
+        boolean first = limiter.tryAcquire("user-1", now);
+        boolean second = limiter.tryAcquire("user-1", now);
+        boolean third = limiter.tryAcquire("user-1", now);
+        boolean fourth = limiter.tryAcquire("user-1", now);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isTrue();
+        assertThat(fourth).isFalse();
+    }
+
+    @Test
+    @DisplayName("tryAcquire: должен восполнять корзину со временем и не делить ее между пользователями")
+    void tryAcquire_shouldRefillAndKeepUsersApart() {
+        // Given
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user-1", now);
+        }
+
+        // When
+        boolean sameInstant = limiter.tryAcquire("user-1", now);
+        boolean otherUser = limiter.tryAcquire("user-2", now);
+        boolean afterInterval = limiter.tryAcquire("user-1", now + TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Then
+        assertThat(sameInstant).isFalse();
+        assertThat(otherUser).isTrue();
+        assertThat(afterInterval).isTrue();
+    }
+}
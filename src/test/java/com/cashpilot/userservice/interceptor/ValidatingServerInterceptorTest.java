@@ -0,0 +1,99 @@
+package com.cashpilot.userservice.interceptor;
+
+import com.cashpilot.account.proto.BankNameProto;
+import com.cashpilot.account.proto.CreateAccountRequest;
+import com.cashpilot.userservice.service.ValidatorService;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для ValidatingServerInterceptor")
+class ValidatingServerInterceptorTest {
+
+    private static final CreateAccountRequest VALID_REQUEST = CreateAccountRequest.newBuilder()
+            .setBankName(BankNameProto.KASPI)
+            .setAccountName("Main")
+            .setCurrency("KZT")
+            .build();
+
+    @Mock
+    private ServerCall<CreateAccountRequest, String> call;
+    @Mock
+    private ServerCallHandler<CreateAccountRequest, String> next;
+    @Mock
+    private ServerCall.Listener<CreateAccountRequest> delegate;
+
+    private final ValidatingServerInterceptor interceptor = new ValidatingServerInterceptor(new ValidatorService());
+
+    @Test
+    @DisplayName("onMessage: должен закрыть вызов с INVALID_ARGUMENT и не передавать его обработчику")
+    void onMessage_shouldCloseWithInvalidArgument_whenMessageIsInvalid() {
+        // Given
+        Metadata headers = new Metadata();
+        when(next.startCall(any(), eq(headers))).thenReturn(delegate);
+        ServerCall.Listener<CreateAccountRequest> listener = interceptor.interceptCall(call, headers, next);
+        CreateAccountRequest invalidRequest = VALID_REQUEST.toBuilder().setCurrency("XXX").build();
+        ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+
+        // When
+        listener.onMessage(invalidRequest);
+        listener.onHalfClose();
+
+        // Then
+        verify(call).close(statusCaptor.capture(), any(Metadata.class));
+        assertThat(statusCaptor.getValue().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        verify(delegate, never()).onMessage(any());
+        verify(delegate, never()).onHalfClose();
+    }
+
+    @Test
+    @DisplayName("onMessage: должен передать корректное сообщение обработчику")
+    void onMessage_shouldPassValidMessageThrough() {
+        // Given
+        Metadata headers = new Metadata();
+        when(next.startCall(any(), eq(headers))).thenReturn(delegate);
+        ServerCall.Listener<CreateAccountRequest> listener = interceptor.interceptCall(call, headers, next);
+
+        // When
+        listener.onMessage(VALID_REQUEST);
+        listener.onHalfClose();
+
+        // Then
+        verify(delegate).onMessage(VALID_REQUEST);
+        verify(delegate).onHalfClose();
+        verify(call, never()).close(any(), any());
+    }
+
+    @Test
+    @DisplayName("onMessage: не должен повторно закрывать вызов, уже закрытый аутентификацией")
+    void onMessage_shouldNotCloseAgain_whenCallAlreadyClosed() {
+        // Given
+        Metadata headers = new Metadata();
+        when(next.startCall(any(), eq(headers))).thenAnswer(invocation -> {
+            ServerCall<CreateAccountRequest, String> trackedCall = invocation.getArgument(0);
+            trackedCall.close(Status.UNAUTHENTICATED, new Metadata());
+            return delegate;
+        });
+        ServerCall.Listener<CreateAccountRequest> listener = interceptor.interceptCall(call, headers, next);
+        ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+
+        // When
+        listener.onMessage(CreateAccountRequest.getDefaultInstance());
+
+        // Then
+        verify(call, times(1)).close(statusCaptor.capture(), any(Metadata.class));
+        assertThat(statusCaptor.getValue().getCode()).isEqualTo(Status.Code.UNAUTHENTICATED);
+    }
+}
@@ -0,0 +1,102 @@
+package com.cashpilot.userservice.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Тесты для StatementCountingConnection")
+class StatementCountingConnectionTest {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    // Свои реализации: отвечают за обертку сами и лишь при необходимости спрашивают делегата
+    private static final Set<String> WRAPPER_METHODS = Set.of("unwrap", "isWrapperFor");
+
+    private final Connection delegate = mock(Connection.class);
+    private final StatementCountingConnection connection = new StatementCountingConnection(delegate);
+    private final RpcDbStats stats = new RpcDbStats();
+    private RpcDbStats previous;
+
+    @BeforeEach
+    void setUp() {
+        previous = RpcDbStats.bind(stats);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RpcDbStats.restore(previous);
+    }
+
+
+    @Test
+    @DisplayName("каждый метод Connection должен вызывать тот же метод делегата, а statement считаться только при создании")
+    void everyConnectionMethod_shouldDelegate() throws Exception {
+        for (Method method : Connection.class.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || WRAPPER_METHODS.contains(method.getName())) {
+                continue;
+            }
+            // Given
+            clearInvocations(delegate);
+            int statementsBefore = stats.getStatements();
+
+            // When
+            method.invoke(connection, defaultArguments(method));
+
+            // Then
+            assertThat(mockingDetails(delegate).getInvocations())
+                    .as("%s must be delegated", method)
+                    .anyMatch(invocation -> sameSignature(invocation, method));
+            int expectedStatements = STATEMENT_FACTORIES.contains(method.getName()) ? 1 : 0;
+            assertThat(stats.getStatements() - statementsBefore)
+                    .as("statements counted by %s", method)
+                    .isEqualTo(expectedStatements);
+        }
+    }
+
+    @Test
+    @DisplayName("unwrap: должен вернуть саму обертку или спросить делегата")
+    void unwrap_shouldReturnWrapperOrDelegate() throws Exception {
+        // Given
+        when(delegate.unwrap(String.class)).thenReturn("driver connection");
+
+        // When / Then
+        assertThat(connection.unwrap(StatementCountingConnection.class)).isSameAs(connection);
+        assertThat(connection.unwrap(String.class)).isEqualTo("driver connection");
+        assertThat(connection.isWrapperFor(StatementCountingConnection.class)).isTrue();
+    }
+
+
+    private static Object[] defaultArguments(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(StatementCountingConnectionTest::defaultValue)
+                .toArray();
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static boolean sameSignature(Invocation invocation, Method method) {
+        return invocation.getMethod().getName().equals(method.getName())
+                && Arrays.equals(invocation.getMethod().getParameterTypes(), method.getParameterTypes());
+    }
+}
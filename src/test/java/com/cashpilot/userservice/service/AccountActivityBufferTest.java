@@ -0,0 +1,197 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.config.AccountActivityProperties;
+import com.cashpilot.userservice.exception.UnavailableException;
+import com.cashpilot.userservice.repository.AccountActivityJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для AccountActivityBuffer")
+class AccountActivityBufferTest {
+
+    private static final UUID ACCOUNT_ID = UUID.randomUUID();
+    private static final Instant T1 = Instant.parse("2024-01-01T10:00:00Z");
+    private static final Instant T2 = Instant.parse("2024-01-02T10:00:00Z");
+    private static final Instant T3 = Instant.parse("2024-01-03T10:00:00Z");
+
+    private static final AccountProto UPDATED_ACCOUNT = AccountProto.newBuilder()
+            .setAccountId(ACCOUNT_ID.toString())
+            .setUserProfileId("user-1")
+            .setEtag("2")
+            .build();
+
+    @Mock
+    private AccountActivityJdbcRepository accountActivityRepository;
+    @Mock
+    private ChangeEventJdbcRepository changeEventRepository;
+    @Mock
+    private AccountListCache accountListCache;
+
+    private AccountActivityBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new AccountActivityBuffer(accountActivityRepository, changeEventRepository, accountListCache,
+                TransactionOperations.withoutTransaction(), new AccountActivityProperties(Duration.ofSeconds(1), 1000, Duration.ZERO), new SimpleMeterRegistry());
+    }
+
+
+    @Test
+    @DisplayName("flush: должен схлопнуть события по счету в одну строку с минимальной и максимальной датой")
+    @SuppressWarnings("unchecked")
+    void flush_shouldCoalesceEventsPerAccount() {
+        // Given
+        when(accountActivityRepository.applyActivity(any(), any(), any())).thenReturn(List.of(UPDATED_ACCOUNT));
+        buffer.record(ACCOUNT_ID, T2);
+        buffer.record(ACCOUNT_ID, T3);
+        buffer.record(ACCOUNT_ID, T1);
+
+        // When
+        buffer.flush();
+
+        // Then
+        ArgumentCaptor<List<UUID>> ids = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Instant>> firsts = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Instant>> lasts = ArgumentCaptor.forClass(List.class);
+        verify(accountActivityRepository).applyActivity(ids.capture(), firsts.capture(), lasts.capture());
+        assertThat(ids.getValue()).containsExactly(ACCOUNT_ID);
+        assertThat(firsts.getValue()).containsExactly(T1);
+        assertThat(lasts.getValue()).containsExactly(T3);
+        verify(accountListCache).evict("user-1");
+    }
+
+    @Test
+    @DisplayName("flush: должен записать событие UPDATED для каждого измененного счета")
+    void flush_shouldRecordUpdatedEvents() {
+        // Given
+        when(accountActivityRepository.applyActivity(any(), any(), any())).thenReturn(List.of(UPDATED_ACCOUNT));
+        buffer.record(ACCOUNT_ID, T1);
+
+        // When
+        buffer.flush();
+
+        // Then
+        verify(changeEventRepository).recordAccountChanges(ChangeType.UPDATED, List.of(UPDATED_ACCOUNT));
+    }
+
+    @Test
+    @DisplayName("flush: не должен писать события, если даты ни одного счета не изменились")
+    void flush_shouldNotRecordEvents_whenNoRowsChanged() {
+        // Given
+        when(accountActivityRepository.applyActivity(any(), any(), any())).thenReturn(List.of());
+        buffer.record(ACCOUNT_ID, T1);
+
+        // When
+        buffer.flush();
+
+        // Then
+        verifyNoInteractions(changeEventRepository, accountListCache);
+    }
+
+    @Test
+    @DisplayName("record: должен сбросить буфер в потоке-производителе, когда в нем накопилось max-pending-accounts счетов")
+    void record_shouldFlushInline_whenBufferIsFull() {
+        // Given
+        AccountActivityBuffer smallBuffer = new AccountActivityBuffer(accountActivityRepository, changeEventRepository,
+                accountListCache, TransactionOperations.withoutTransaction(),
+                new AccountActivityProperties(Duration.ofSeconds(1), 1, Duration.ZERO), new SimpleMeterRegistry());
+        when(accountActivityRepository.applyActivity(any(), any(), any())).thenReturn(List.of(UPDATED_ACCOUNT));
+
+        // When
+        smallBuffer.record(ACCOUNT_ID, T1);
+
+        // Then
+        verify(accountActivityRepository).applyActivity(List.of(ACCOUNT_ID), List.of(T1), List.of(T1));
+    }
+
+    @Test
+    @DisplayName("record: должен отклонить событие без повторной записи в БД, пока после ошибки идет пауза")
+    void record_shouldRejectWithoutRetry_whenFullDuringBackoff() {
+        // Given
+        AccountActivityBuffer smallBuffer = new AccountActivityBuffer(accountActivityRepository, changeEventRepository,
+                accountListCache, TransactionOperations.withoutTransaction(),
+                new AccountActivityProperties(Duration.ofSeconds(1), 1, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+        when(accountActivityRepository.applyActivity(any(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+        smallBuffer.record(ACCOUNT_ID, T1);
+
+        // When
+        // Первое переполнение пробует записать и падает, второе уже не трогает БД
+        assertThatThrownBy(() -> smallBuffer.record(UUID.randomUUID(), T2)).isInstanceOf(UnavailableException.class);
+        assertThatThrownBy(() -> smallBuffer.record(UUID.randomUUID(), T3)).isInstanceOf(UnavailableException.class);
+        smallBuffer.flush();
+
+        // Then
+        verify(accountActivityRepository, times(1)).applyActivity(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("flushOnShutdown: должен попытаться записать буфер даже во время паузы после ошибки")
+    void flushOnShutdown_shouldIgnoreBackoff() {
+        // Given
+        AccountActivityBuffer backoffBuffer = new AccountActivityBuffer(accountActivityRepository, changeEventRepository,
+                accountListCache, TransactionOperations.withoutTransaction(),
+                new AccountActivityProperties(Duration.ofSeconds(1), 1000, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+        when(accountActivityRepository.applyActivity(any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(UPDATED_ACCOUNT));
+        backoffBuffer.record(ACCOUNT_ID, T1);
+        backoffBuffer.flush();
+
+        // When
+        backoffBuffer.flushOnShutdown();
+
+        // Then
+        verify(accountActivityRepository, times(2)).applyActivity(List.of(ACCOUNT_ID), List.of(T1), List.of(T1));
+        verify(changeEventRepository).recordAccountChanges(ChangeType.UPDATED, List.of(UPDATED_ACCOUNT));
+    }
+
+    @Test
+    @DisplayName("flush: не должен обращаться к БД, если событий не было")
+    void flush_shouldSkipDatabase_whenNothingPending() {
+        // When
+        buffer.flush();
+
+        // Then
+        verifyNoInteractions(accountActivityRepository);
+    }
+
+    @Test
+    @DisplayName("flush: должен вернуть события в буфер, если запись в БД не удалась")
+    void flush_shouldKeepEvents_whenUpdateFails() {
+        // Given
+        buffer.record(ACCOUNT_ID, T1);
+        when(accountActivityRepository.applyActivity(any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of());
+
+        // When
+        buffer.flush();
+        buffer.flush();
+
+        // Then
+        verify(accountActivityRepository, times(2)).applyActivity(List.of(ACCOUNT_ID), List.of(T1), List.of(T1));
+    }
+}
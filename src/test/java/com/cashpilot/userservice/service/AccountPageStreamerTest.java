@@ -0,0 +1,116 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.account.proto.AccountProto;
+import com.cashpilot.userservice.repository.AccountJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для AccountPageStreamer")
+class AccountPageStreamerTest {
+
+    private static final String TEST_USER_ID = "user-1";
+    private static final int PAGE_SIZE = 2;
+
+    private static final AccountProto FIRST = account();
+    private static final AccountProto SECOND = account();
+    private static final AccountProto THIRD = account();
+
+    @Mock
+    private AccountJdbcRepository accountJdbcRepository;
+
+    private final FakeServerCallStreamObserver<AccountProto> observer = new FakeServerCallStreamObserver<>();
+    private AccountPageStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        streamer = new AccountPageStreamer(observer, accountJdbcRepository, TEST_USER_ID, PAGE_SIZE);
+        streamer.start();
+    }
+
+
+    @Test
+    @DisplayName("run: должен остановиться, когда isReady() стал false, и не запрашивать следующую страницу")
+    void run_shouldStop_whenTransportIsNotReady() {
+        // Given
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, null, PAGE_SIZE)).thenReturn(List.of(FIRST, SECOND));
+        observer.sendsUntilNotReady = 1;
+
+        // When
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(FIRST);
+        assertThat(observer.completed).isFalse();
+        verify(accountJdbcRepository, times(1)).findPageByUserId(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("run: должен продолжить с того же места по onReady")
+    void run_shouldResume_whenTransportBecomesReadyAgain() {
+        // Given
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, null, PAGE_SIZE)).thenReturn(List.of(FIRST, SECOND));
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, UUID.fromString(SECOND.getAccountId()), PAGE_SIZE))
+                .thenReturn(List.of(THIRD));
+        observer.sendsUntilNotReady = 1;
+        observer.becomeReady();
+
+        // When
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(FIRST, SECOND, THIRD);
+        assertThat(observer.completed).isTrue();
+    }
+
+    @Test
+    @DisplayName("run: ничего не должен отправлять после отмены вызова")
+    void run_shouldSendNothing_afterCancellation() {
+        // Given
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, null, PAGE_SIZE)).thenReturn(List.of(FIRST, SECOND));
+        observer.sendsUntilNotReady = 1;
+        observer.becomeReady();
+
+        // When
+        observer.cancel();
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(FIRST);
+        assertThat(observer.completed).isFalse();
+        assertThat(observer.error).isNull();
+        verify(accountJdbcRepository, times(1)).findPageByUserId(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("run: должен завершить поток после последней неполной страницы без лишнего запроса")
+    void run_shouldComplete_afterLastShortPage() {
+        // Given
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, null, PAGE_SIZE)).thenReturn(List.of(FIRST, SECOND));
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, UUID.fromString(SECOND.getAccountId()), PAGE_SIZE))
+                .thenReturn(List.of(THIRD));
+
+        // When
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(FIRST, SECOND, THIRD);
+        assertThat(observer.completed).isTrue();
+        verify(accountJdbcRepository, times(2)).findPageByUserId(any(), any(), anyInt());
+    }
+
+
+    private static AccountProto account() {
+        return AccountProto.newBuilder().setAccountId(UUID.randomUUID().toString()).build();
+    }
+}
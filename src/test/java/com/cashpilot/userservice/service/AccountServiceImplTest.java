@@ -1,19 +1,29 @@
 package com.cashpilot.userservice.service;
 
 import com.cashpilot.account.proto.*;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.config.CacheProperties;
 import com.cashpilot.userservice.config.SecurityUtil;
+import com.cashpilot.userservice.datasource.ReadYourWritesTracker;
 import com.cashpilot.userservice.entity.Account;
 import com.cashpilot.userservice.entity.UserProfile;
 import com.cashpilot.userservice.enums.BankName;
 import com.cashpilot.userservice.enums.Currency;
 import com.cashpilot.userservice.exception.AlreadyExistException;
+import com.cashpilot.userservice.exception.ConstraintViolations;
+import com.cashpilot.userservice.exception.EtagMismatchException;
 import com.cashpilot.userservice.exception.NotFoundException;
 import com.cashpilot.userservice.exception.ValidationException;
 import com.cashpilot.userservice.mapper.AccountMapper;
+import com.cashpilot.userservice.repository.AccountJdbcRepository;
 import com.cashpilot.userservice.repository.AccountRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
 import com.cashpilot.userservice.repository.UserProfileRepository;
 import com.google.protobuf.Empty;
+import com.google.protobuf.Timestamp;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,8 +31,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -39,6 +54,8 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
     @Mock
+    private AccountJdbcRepository accountJdbcRepository;
+    @Mock
     private UserProfileRepository userProfileRepository;
     @Mock
     private AccountMapper accountMapper;
@@ -46,6 +63,19 @@ class AccountServiceImplTest {
     private SecurityUtil securityUtil;
     @Mock
     private ValidatorService validatorService;
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+    @Mock
+    private ChangeEventJdbcRepository changeEventRepository;
+    @Mock
+    private AccountActivityBuffer accountActivityBuffer;
+
+    @Spy
+    private AccountListCache accountListCache = new AccountListCache(
+            new CacheProperties(
+                    new CacheProperties.Spec(true, 100, Duration.ofMinutes(1)),
+                    new CacheProperties.Spec(true, 100, Duration.ofMinutes(1))),
+            new SimpleMeterRegistry());
 
     @Mock
     private StreamObserver<AccountProto> accountProtoObserver;
@@ -53,6 +83,10 @@ class AccountServiceImplTest {
     private StreamObserver<ListAccountsResponse> listAccountsResponseObserver;
     @Mock
     private StreamObserver<Empty> emptyObserver;
+    @Mock
+    private StreamObserver<BatchGetAccountsResponse> batchGetAccountsResponseObserver;
+    @Mock
+    private StreamObserver<CreateAccountsResponse> createAccountsResponseObserver;
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -90,7 +124,7 @@ class AccountServiceImplTest {
 
 
     @Test
-    @DisplayName("createAccount: должен успешно создать счет")
+    @DisplayName("createAccount: должен успешно создать счет одним INSERT без предварительных проверок")
     void createAccount_shouldSucceed() {
         // Given
         CreateAccountRequest request = CreateAccountRequest.newBuilder()
@@ -101,20 +135,19 @@ class AccountServiceImplTest {
 
         // Моки, необходимые для этого теста
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(userProfileRepository.getReferenceById(TEST_USER_ID)).thenReturn(testUserProfile);
 
-        doNothing().when(validatorService).validate(any());
-        when(accountRepository.existsByUserProfileAndBankName(testUserProfile, BankName.KASPI)).thenReturn(false);
         when(accountMapper.createRequestToEntity(request, testUserProfile)).thenReturn(testAccountEntity);
-        when(accountRepository.save(testAccountEntity)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAndFlush(testAccountEntity)).thenReturn(testAccountEntity);
         when(accountMapper.entityToProto(testAccountEntity)).thenReturn(testAccountProto);
 
         // When
         accountService.createAccount(request, accountProtoObserver);
 
         // Then
-        verify(validatorService).validate(any());
-        verify(accountRepository).save(testAccountEntity);
+        verify(validatorService, never()).validate(any());
+        verify(accountRepository).saveAndFlush(testAccountEntity);
+        verify(userProfileRepository, never()).findById(any());
         verify(accountProtoObserver).onNext(testAccountProto);
         verify(accountProtoObserver).onCompleted();
     }
@@ -127,56 +160,147 @@ class AccountServiceImplTest {
 
         // Моки, необходимые для этого теста
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(userProfileRepository.getReferenceById(TEST_USER_ID)).thenReturn(testUserProfile);
 
-        doNothing().when(validatorService).validate(any());
-        when(accountRepository.existsByUserProfileAndBankName(testUserProfile, BankName.KASPI)).thenReturn(true);
+        when(accountMapper.createRequestToEntity(request, testUserProfile)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAndFlush(testAccountEntity))
+                .thenThrow(constraintViolation(ConstraintViolations.UK_USER_PROFILE_BANK_NAME));
 
         // When & Then
         assertThrows(AlreadyExistException.class, () -> {
             accountService.createAccount(request, accountProtoObserver);
         });
 
-        verify(accountRepository, never()).save(any());
         verify(accountProtoObserver, never()).onNext(any());
     }
 
     @Test
-    @DisplayName("createAccount: должен выбросить ValidationException, если валидация не пройдена")
-    void createAccount_shouldThrowValidationException_whenValidationFails() {
+    @DisplayName("createAccount: должен выбросить NotFoundException, если UserProfile не найден")
+    void createAccount_shouldThrowNotFoundException_whenUserNotFound() {
         // Given
         CreateAccountRequest request = CreateAccountRequest.getDefaultInstance();
-        doThrow(new ValidationException("Validation failed")).when(validatorService).validate(any());
+
+        // Моки, необходимые для этого теста
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(userProfileRepository.getReferenceById(TEST_USER_ID)).thenReturn(testUserProfile);
+
+        when(accountMapper.createRequestToEntity(request, testUserProfile)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAndFlush(testAccountEntity))
+                .thenThrow(constraintViolation(ConstraintViolations.FK_ACCOUNTS_USER_PROFILE)); // Ключевой мок
 
         // When & Then
-        assertThrows(ValidationException.class, () -> {
+        assertThrows(NotFoundException.class, () -> {
             accountService.createAccount(request, accountProtoObserver);
         });
+    }
 
-        verify(userProfileRepository, never()).findById(any());
+    @Test
+    @DisplayName("createAccounts: должен создать новые счета одним батчем и вернуть ошибки для дубликатов")
+    void createAccounts_shouldBatchInsertNewAccounts_andReportDuplicates() {
+        // Given
+        CreateAccountRequest kaspi = CreateAccountRequest.newBuilder()
+                .setBankName(BankNameProto.KASPI)
+                .setAccountName("My Kaspi")
+                .setCurrency("KZT")
+                .build();
+        CreateAccountRequest halyk = kaspi.toBuilder().setBankName(BankNameProto.HALYK).build();
+        CreateAccountsRequest request = CreateAccountsRequest.newBuilder()
+                .addAccounts(kaspi)
+                .addAccounts(kaspi)
+                .addAccounts(halyk)
+                .build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(accountRepository.findBankNamesByUserId(TEST_USER_ID)).thenReturn(List.of(BankName.HALYK));
+        when(accountMapper.createRequestToEntity(kaspi, testUserProfile)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAll(List.of(testAccountEntity))).thenReturn(List.of(testAccountEntity));
+        when(accountMapper.entityToProto(testAccountEntity)).thenReturn(testAccountProto);
+
+        ArgumentCaptor<CreateAccountsResponse> responseCaptor = ArgumentCaptor.forClass(CreateAccountsResponse.class);
+
+        // When
+        accountService.createAccounts(request, createAccountsResponseObserver);
+
+        // Then
+        verify(accountRepository).saveAll(List.of(testAccountEntity));
+        verify(createAccountsResponseObserver).onNext(responseCaptor.capture());
+        verify(createAccountsResponseObserver).onCompleted();
+
+        List<CreateAccountResult> results = responseCaptor.getValue().getResultsList();
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getAccount()).isEqualTo(testAccountProto);
+        assertThat(results.get(1).getError().getCode()).isEqualTo(com.google.rpc.Code.ALREADY_EXISTS_VALUE);
+        assertThat(results.get(2).getIndex()).isEqualTo(2);
+        assertThat(results.get(2).getError().getCode()).isEqualTo(com.google.rpc.Code.ALREADY_EXISTS_VALUE);
     }
 
     @Test
-    @DisplayName("createAccount: должен выбросить NotFoundException, если UserProfile не найден")
-    void createAccount_shouldThrowNotFoundException_whenUserNotFound() {
+    @DisplayName("createAccounts: должен вернуть INVALID_ARGUMENT для невалидного элемента и сохранить остальные")
+    void createAccounts_shouldReportInvalidItem_andSaveValidOnes() {
         // Given
-        CreateAccountRequest request = CreateAccountRequest.getDefaultInstance();
+        CreateAccountRequest invalid = CreateAccountRequest.getDefaultInstance();
+        CreateAccountRequest kaspi = CreateAccountRequest.newBuilder()
+                .setBankName(BankNameProto.KASPI)
+                .setAccountName("My Kaspi")
+                .setCurrency("KZT")
+                .build();
+        CreateAccountsRequest request = CreateAccountsRequest.newBuilder()
+                .addAccounts(invalid)
+                .addAccounts(kaspi)
+                .build();
 
-        // Моки, необходимые для этого теста
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty()); // Ключевой мок
+        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(accountRepository.findBankNamesByUserId(TEST_USER_ID)).thenReturn(List.of());
+        doThrow(new ValidationException("Validation failed")).when(validatorService).validate(invalid);
+        when(accountMapper.createRequestToEntity(kaspi, testUserProfile)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAll(List.of(testAccountEntity))).thenReturn(List.of(testAccountEntity));
+        when(accountMapper.entityToProto(testAccountEntity)).thenReturn(testAccountProto);
+
+        ArgumentCaptor<CreateAccountsResponse> responseCaptor = ArgumentCaptor.forClass(CreateAccountsResponse.class);
+
+        // When
+        accountService.createAccounts(request, createAccountsResponseObserver);
 
-        doNothing().when(validatorService).validate(any());
+        // Then
+        verify(validatorService).validate(invalid);
+        verify(validatorService).validate(kaspi);
+        verify(validatorService, never()).validate(request);
+        verify(createAccountsResponseObserver).onNext(responseCaptor.capture());
+
+        List<CreateAccountResult> results = responseCaptor.getValue().getResultsList();
+        assertThat(results.get(0).getError().getCode()).isEqualTo(com.google.rpc.Code.INVALID_ARGUMENT_VALUE);
+        assertThat(results.get(1).getAccount()).isEqualTo(testAccountProto);
+    }
+
+    @Test
+    @DisplayName("createAccounts: должен выбросить AlreadyExistException, если счет из того же банка создан параллельно")
+    void createAccounts_shouldThrowAlreadyExistException_whenConcurrentInsertViolatesUniqueBank() {
+        // Given
+        CreateAccountRequest kaspi = CreateAccountRequest.newBuilder()
+                .setBankName(BankNameProto.KASPI)
+                .setAccountName("My Kaspi")
+                .setCurrency("KZT")
+                .build();
+        CreateAccountsRequest request = CreateAccountsRequest.newBuilder().addAccounts(kaspi).build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(accountRepository.findBankNamesByUserId(TEST_USER_ID)).thenReturn(List.of());
+        when(accountMapper.createRequestToEntity(kaspi, testUserProfile)).thenReturn(testAccountEntity);
+        when(accountRepository.saveAll(List.of(testAccountEntity))).thenReturn(List.of(testAccountEntity));
+        doThrow(constraintViolation(ConstraintViolations.UK_USER_PROFILE_BANK_NAME)).when(accountRepository).flush();
 
         // When & Then
-        assertThrows(NotFoundException.class, () -> {
-            accountService.createAccount(request, accountProtoObserver);
+        assertThrows(AlreadyExistException.class, () -> {
+            accountService.createAccounts(request, createAccountsResponseObserver);
         });
 
-        verify(accountRepository, never()).existsByUserProfileAndBankName(any(), any());
+        verify(changeEventRepository, never()).recordAccountChanges(any(), any());
+        verify(createAccountsResponseObserver, never()).onNext(any());
     }
 
-
     @Test
     @DisplayName("getAccount: должен успешно вернуть счет, если он найден и принадлежит юзеру")
     void getAccount_shouldSucceed_whenFoundAndOwned() {
@@ -186,14 +310,15 @@ class AccountServiceImplTest {
         // Мок для проверки владения
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccountEntity));
-        when(accountMapper.entityToProto(testAccountEntity)).thenReturn(testAccountProto);
+        when(accountJdbcRepository.findByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID))
+                .thenReturn(Optional.of(testAccountProto));
 
         // When
         accountService.getAccount(request, accountProtoObserver);
 
         // Then
-        verify(accountRepository).findById(TEST_ACCOUNT_ID);
+        verify(accountJdbcRepository).findByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID);
+        verifyNoInteractions(accountRepository, accountMapper);
         verify(accountProtoObserver).onNext(testAccountProto);
         verify(accountProtoObserver).onCompleted();
     }
@@ -203,14 +328,16 @@ class AccountServiceImplTest {
     void getAccount_shouldThrowNotFoundException_whenAccountNotFound() {
         // Given
         GetAccountRequest request = GetAccountRequest.newBuilder().setAccountId(TEST_ACCOUNT_ID_STRING).build();
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountJdbcRepository.findByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID))
+                .thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
             accountService.getAccount(request, accountProtoObserver);
         });
 
-        verify(accountMapper, never()).entityToProto(any());
+        verify(accountProtoObserver, never()).onNext(any());
     }
 
     @Test
@@ -219,16 +346,12 @@ class AccountServiceImplTest {
         // Given
         GetAccountRequest request = GetAccountRequest.newBuilder().setAccountId(TEST_ACCOUNT_ID_STRING).build();
 
-        UserProfile otherUser = new UserProfile();
-        otherUser.setUserId("other-user-id");
-        Account otherAccount = new Account();
-        otherAccount.setAccountId(TEST_ACCOUNT_ID);
-        otherAccount.setUserProfile(otherUser);
-
-        // Мок для проверки владения (вернет TEST_USER_ID, который не "other-user-id")
+        // Мок для проверки владения (вернет TEST_USER_ID, а счет принадлежит "other-user-id")
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(otherAccount));
+        // Владение проверяется в самом запросе, поэтому чужой счет просто не находится
+        when(accountJdbcRepository.findByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID))
+                .thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
@@ -247,23 +370,57 @@ class AccountServiceImplTest {
             accountService.getAccount(request, accountProtoObserver);
         });
 
-        verify(accountRepository, never()).findById(any());
+        verify(accountJdbcRepository, never()).findByAccountIdAndUserId(any(), any());
     }
 
 
+    @Test
+    @DisplayName("batchGetAccounts: должен вернуть свои счета и отметить чужие и несуществующие как не найденные")
+    void batchGetAccounts_shouldReturnOwnedAccounts_andMarkOthersNotFound() {
+        // Given
+        String otherUsersAccountId = UUID.randomUUID().toString();
+        String missingAccountId = UUID.randomUUID().toString();
+
+        BatchGetAccountsRequest request = BatchGetAccountsRequest.newBuilder()
+                .addAccountIds(TEST_ACCOUNT_ID_STRING)
+                .addAccountIds(otherUsersAccountId)
+                .addAccountIds(missingAccountId)
+                .build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        // Запрос ограничен владельцем, поэтому счет другого пользователя в ответ БД не попадает
+        when(accountJdbcRepository.findAllByAccountIdsAndUserId(any(), eq(TEST_USER_ID))).thenReturn(List.of(testAccountProto));
+
+        ArgumentCaptor<BatchGetAccountsResponse> responseCaptor = ArgumentCaptor.forClass(BatchGetAccountsResponse.class);
+
+        // When
+        accountService.batchGetAccounts(request, batchGetAccountsResponseObserver);
+
+        // Then
+        verify(accountJdbcRepository, times(1)).findAllByAccountIdsAndUserId(any(), eq(TEST_USER_ID));
+        verify(accountRepository, never()).findAllById(any());
+        verify(batchGetAccountsResponseObserver).onNext(responseCaptor.capture());
+        verify(batchGetAccountsResponseObserver).onCompleted();
+
+        List<AccountResult> results = responseCaptor.getValue().getResultsList();
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getAccount()).isEqualTo(testAccountProto);
+        assertThat(results.get(1).getNotFound()).isTrue();
+        assertThat(results.get(2).getAccountId()).isEqualTo(missingAccountId);
+        assertThat(results.get(2).getNotFound()).isTrue();
+    }
+
     @Test
     @DisplayName("listAccounts: должен вернуть список счетов пользователя")
     void listAccounts_shouldReturnListOfAccounts() {
         // Given
         ListAccountsRequest request = ListAccountsRequest.getDefaultInstance();
-        List<Account> userAccounts = List.of(testAccountEntity);
         List<AccountProto> protoAccounts = List.of(testAccountProto);
 
         // Мок для получения ID пользователя
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        when(accountRepository.findAllByUserProfile_UserId(TEST_USER_ID)).thenReturn(userAccounts);
-        when(accountMapper.entitiesToProtos(userAccounts)).thenReturn(protoAccounts);
+        when(accountJdbcRepository.findAllByUserId(TEST_USER_ID)).thenReturn(protoAccounts);
 
         ArgumentCaptor<ListAccountsResponse> responseCaptor = ArgumentCaptor.forClass(ListAccountsResponse.class);
 
@@ -279,6 +436,31 @@ class AccountServiceImplTest {
         assertThat(response.getAccountsList().get(0)).isEqualTo(testAccountProto);
     }
 
+    @Test
+    @DisplayName("listAccounts: должен ответить not_modified без списка, если etag клиента актуален")
+    void listAccounts_shouldReturnNotModified_whenEtagMatches() {
+        // Given
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountJdbcRepository.findAllByUserId(TEST_USER_ID)).thenReturn(List.of(testAccountProto));
+        ArgumentCaptor<ListAccountsResponse> responseCaptor = ArgumentCaptor.forClass(ListAccountsResponse.class);
+
+        accountService.listAccounts(ListAccountsRequest.getDefaultInstance(), listAccountsResponseObserver);
+        verify(listAccountsResponseObserver).onNext(responseCaptor.capture());
+        String etag = responseCaptor.getValue().getEtag();
+
+        // When
+        accountService.listAccounts(ListAccountsRequest.newBuilder().setIfNoneMatch(etag).build(), listAccountsResponseObserver);
+
+        // Then
+        verify(accountJdbcRepository, times(1)).findAllByUserId(TEST_USER_ID);
+        verify(listAccountsResponseObserver, times(2)).onNext(responseCaptor.capture());
+        ListAccountsResponse notModified = responseCaptor.getValue();
+        assertThat(etag).isNotEmpty();
+        assertThat(notModified.getNotModified()).isTrue();
+        assertThat(notModified.getEtag()).isEqualTo(etag);
+        assertThat(notModified.getAccountsList()).isEmpty();
+    }
+
     @Test
     @DisplayName("listAccounts: должен вернуть пустой список, если счетов нет")
     void listAccounts_shouldReturnEmptyList_whenNoAccounts() {
@@ -288,8 +470,7 @@ class AccountServiceImplTest {
         // Мок для получения ID пользователя
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        when(accountRepository.findAllByUserProfile_UserId(TEST_USER_ID)).thenReturn(List.of());
-        when(accountMapper.entitiesToProtos(List.of())).thenReturn(List.of());
+        when(accountJdbcRepository.findAllByUserId(TEST_USER_ID)).thenReturn(List.of());
 
         ArgumentCaptor<ListAccountsResponse> responseCaptor = ArgumentCaptor.forClass(ListAccountsResponse.class);
 
@@ -304,6 +485,54 @@ class AccountServiceImplTest {
     }
 
 
+    @Test
+    @DisplayName("listAccounts: должен вернуть страницу и токен следующей страницы, если задан page_size")
+    void listAccounts_shouldReturnPageWithNextToken_whenPageSizeSet() {
+        // Given
+        ListAccountsRequest request = ListAccountsRequest.newBuilder().setPageSize(1).build();
+        AccountProto secondAccount = testAccountProto.toBuilder().setAccountId(UUID.randomUUID().toString()).build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountJdbcRepository.findPageByUserId(TEST_USER_ID, null, 2)).thenReturn(List.of(testAccountProto, secondAccount));
+
+        ArgumentCaptor<ListAccountsResponse> responseCaptor = ArgumentCaptor.forClass(ListAccountsResponse.class);
+
+        // When
+        accountService.listAccounts(request, listAccountsResponseObserver);
+
+        // Then
+        verify(listAccountsResponseObserver).onNext(responseCaptor.capture());
+        assertThat(responseCaptor.getValue().getAccountsList()).containsExactly(testAccountProto);
+        assertThat(responseCaptor.getValue().getNextPageToken()).isEqualTo(TEST_ACCOUNT_ID_STRING);
+        verify(accountJdbcRepository, never()).findAllByUserId(any());
+    }
+
+    @Test
+    @DisplayName("listAccounts: повторный запрос должен обслуживаться из кэша, а изменение счета - сбрасывать кэш")
+    void listAccounts_shouldServeFromCache_untilAccountChanges() {
+        // Given
+        ListAccountsRequest request = ListAccountsRequest.getDefaultInstance();
+        UpdateAccountRequest updateRequest = UpdateAccountRequest.newBuilder()
+                .setAccountId(TEST_ACCOUNT_ID_STRING)
+                .setAccountName("Renamed")
+                .build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountJdbcRepository.findAllByUserId(TEST_USER_ID)).thenReturn(List.of(testAccountProto));
+        when(accountRepository.updateAccountName(TEST_ACCOUNT_ID, TEST_USER_ID, "Renamed", null))
+                .thenReturn(Optional.of(testAccountEntity));
+
+        // When
+        accountService.listAccounts(request, listAccountsResponseObserver);
+        accountService.listAccounts(request, listAccountsResponseObserver);
+        accountService.updateAccount(updateRequest, accountProtoObserver);
+        accountService.listAccounts(request, listAccountsResponseObserver);
+
+        // Then
+        verify(accountJdbcRepository, times(2)).findAllByUserId(TEST_USER_ID);
+        verify(listAccountsResponseObserver, times(3)).onNext(any());
+    }
+
     @Test
     @DisplayName("updateAccount: должен успешно обновить имя счета")
     void updateAccount_shouldSucceed() {
@@ -317,23 +546,22 @@ class AccountServiceImplTest {
         // Мок для проверки владения
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        doNothing().when(validatorService).validate(any());
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccountEntity));
-
-        when(accountRepository.save(any(Account.class))).thenAnswer(inv -> inv.getArgument(0));
+        testAccountEntity.setAccountName(newName);
+        when(accountRepository.updateAccountName(TEST_ACCOUNT_ID, TEST_USER_ID, newName, null))
+                .thenReturn(Optional.of(testAccountEntity));
 
         AccountProto updatedProto = testAccountProto.toBuilder().setAccountName(newName).build();
-        when(accountMapper.entityToProto(any(Account.class))).thenReturn(updatedProto);
-
-        ArgumentCaptor<Account> entityCaptor = ArgumentCaptor.forClass(Account.class);
+        when(accountMapper.entityToProto(testAccountEntity)).thenReturn(updatedProto);
 
         // When
         accountService.updateAccount(request, accountProtoObserver);
 
         // Then
-        verify(validatorService).validate(any());
-        verify(accountRepository).save(entityCaptor.capture());
-        assertThat(entityCaptor.getValue().getAccountName()).isEqualTo(newName);
+        verify(validatorService, never()).validate(any());
+        verify(accountRepository).updateAccountName(TEST_ACCOUNT_ID, TEST_USER_ID, newName, null);
+        verify(accountRepository, never()).findById(any());
+        verify(accountRepository, never()).save(any());
+        verify(readYourWritesTracker).recordWrite(TEST_USER_ID);
 
         verify(accountProtoObserver).onNext(updatedProto);
         verify(accountProtoObserver).onCompleted();
@@ -348,15 +576,40 @@ class AccountServiceImplTest {
                 .setAccountName("New Name")
                 .build();
 
-        doNothing().when(validatorService).validate(any());
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountRepository.updateAccountName(TEST_ACCOUNT_ID, TEST_USER_ID, "New Name", null))
+                .thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
             accountService.updateAccount(request, accountProtoObserver);
         });
 
-        verify(accountRepository, never()).save(any());
+        verify(accountProtoObserver, never()).onNext(any());
+    }
+
+    @Test
+    @DisplayName("updateAccount: должен выбросить EtagMismatchException, если счет изменился после чтения")
+    void updateAccount_shouldThrowEtagMismatchException_whenEtagIsStale() {
+        // Given
+        UpdateAccountRequest request = UpdateAccountRequest.newBuilder()
+                .setAccountId(TEST_ACCOUNT_ID_STRING)
+                .setAccountName("New Name")
+                .setIfMatch("3")
+                .build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountRepository.updateAccountName(TEST_ACCOUNT_ID, TEST_USER_ID, "New Name", 3L))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID)).thenReturn(true);
+
+        // When & Then
+        assertThrows(EtagMismatchException.class, () -> {
+            accountService.updateAccount(request, accountProtoObserver);
+        });
+
+        verify(accountListCache, never()).evict(any());
+        verify(accountProtoObserver, never()).onNext(any());
     }
 
 
@@ -369,15 +622,15 @@ class AccountServiceImplTest {
         // Мок для проверки владения
         when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
 
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccountEntity));
-        doNothing().when(accountRepository).deleteById(TEST_ACCOUNT_ID);
+        when(accountRepository.deleteByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID)).thenReturn(1);
 
         // When
         accountService.deleteAccount(request, emptyObserver);
 
         // Then
-        verify(accountRepository).findById(TEST_ACCOUNT_ID);
-        verify(accountRepository).deleteById(TEST_ACCOUNT_ID);
+        verify(accountRepository).deleteByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID);
+        verify(accountRepository, never()).findById(any());
+        verify(changeEventRepository).recordAccountDeleted(TEST_USER_ID, TEST_ACCOUNT_ID_STRING);
         verify(emptyObserver).onNext(Empty.getDefaultInstance());
         verify(emptyObserver).onCompleted();
     }
@@ -388,14 +641,65 @@ class AccountServiceImplTest {
         // Given
         DeleteAccountRequest request = DeleteAccountRequest.newBuilder().setAccountId(TEST_ACCOUNT_ID_STRING).build();
 
-        // Счет не найден
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        // Счет не найден (или принадлежит другому юзеру)
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountRepository.deleteByAccountIdAndUserId(TEST_ACCOUNT_ID, TEST_USER_ID)).thenReturn(0);
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
             accountService.deleteAccount(request, emptyObserver);
         });
 
-        verify(accountRepository, never()).deleteById(any());
+        verify(emptyObserver, never()).onNext(any());
+    }
+
+    @Test
+    @DisplayName("deleteAccount: с if_match должен удалять только совпадающую версию")
+    void deleteAccount_shouldDeleteMatchingVersion_whenIfMatchIsSet() {
+        // Given
+        DeleteAccountRequest request = DeleteAccountRequest.newBuilder()
+                .setAccountId(TEST_ACCOUNT_ID_STRING)
+                .setIfMatch("7")
+                .build();
+
+        when(securityUtil.getAuthenticatedUserId()).thenReturn(TEST_USER_ID);
+        when(accountRepository.deleteByAccountIdAndUserIdAndVersion(TEST_ACCOUNT_ID, TEST_USER_ID, 7L)).thenReturn(1);
+
+        // When
+        accountService.deleteAccount(request, emptyObserver);
+
+        // Then
+        verify(accountRepository, never()).deleteByAccountIdAndUserId(any(), any());
+        verify(emptyObserver).onCompleted();
+    }
+
+    @Test
+    @DisplayName("recordAccountActivity: должен складывать события в буфер и вернуть их количество по завершении стрима")
+    @SuppressWarnings("unchecked")
+    void recordAccountActivity_shouldBufferEventsAndReturnCount() {
+        // Given
+        StreamObserver<RecordAccountActivityResponse> responseObserver = mock(StreamObserver.class);
+        Timestamp occurredAt = Timestamp.newBuilder().setSeconds(1_700_000_000L).build();
+        AccountActivityEvent event = AccountActivityEvent.newBuilder()
+                .setAccountId(TEST_ACCOUNT_ID_STRING)
+                .setOccurredAt(occurredAt)
+                .build();
+
+        // When
+        StreamObserver<AccountActivityEvent> requestObserver = accountService.recordAccountActivity(responseObserver);
+        requestObserver.onNext(event);
+        requestObserver.onNext(event);
+        requestObserver.onCompleted();
+
+        // Then
+        verify(accountActivityBuffer, times(2)).record(TEST_ACCOUNT_ID, Instant.ofEpochSecond(1_700_000_000L));
+        verify(responseObserver).onNext(RecordAccountActivityResponse.newBuilder().setAcceptedEvents(2).build());
+        verify(responseObserver).onCompleted();
+    }
+
+
+    private static DataIntegrityViolationException constraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("constraint violated",
+                new ConstraintViolationException("constraint violated", new SQLException(), constraintName));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.changefeed.proto.ChangeEvent;
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.FeedPosition;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.StoredChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для ChangeFeedPublisher")
+class ChangeFeedPublisherTest {
+
+    private static final FeedPosition LATEST = new FeedPosition(100, 7);
+
+    @Mock
+    private ChangeEventJdbcRepository changeEventRepository;
+    @Mock
+    private ChangeFeedSubscription subscription;
+
+    private ChangeFeedPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new ChangeFeedPublisher(changeEventRepository,
+                new ChangeFeedProperties(true, Duration.ofMillis(200), 2, Duration.ofDays(7), 100),
+                new SimpleMeterRegistry());
+    }
+
+
+    @Test
+    @DisplayName("subscribe: должен отказать, пока первый опрос не выставил курсор")
+    void subscribe_shouldRefuse_beforeFirstPoll() {
+        // When
+        boolean subscribed = publisher.subscribe(subscription);
+
+        // Then
+        assertThat(subscribed).isFalse();
+        verifyNoInteractions(changeEventRepository);
+    }
+
+    @Test
+    @DisplayName("publish: без подписчиков должен только сдвинуть курсор к последнему событию")
+    void publish_shouldOnlyMoveCursor_whenNoSubscribers() {
+        // Given
+        when(changeEventRepository.findLatestPosition()).thenReturn(LATEST);
+
+        // When
+        publisher.publish();
+
+        // Then
+        verify(changeEventRepository, never()).findAfter(any(), anyInt());
+        assertThat(publisher.subscribe(subscription)).isTrue();
+    }
+
+    @Test
+    @DisplayName("publish: должен раздать пачки подписчикам и продолжить после последней позиции")
+    void publish_shouldFanOutAndAdvanceCursor() {
+        // Given
+        when(changeEventRepository.findLatestPosition()).thenReturn(LATEST);
+        publisher.publish();
+        publisher.subscribe(subscription);
+        StoredChangeEvent first = stored(101, 9);
+        StoredChangeEvent second = stored(102, 8);
+        StoredChangeEvent third = stored(103, 10);
+        when(changeEventRepository.findAfter(LATEST, 2)).thenReturn(List.of(first, second));
+        when(changeEventRepository.findAfter(second.position(), 2)).thenReturn(List.of(third));
+
+        // When
+        publisher.publish();
+
+        // Then
+        verify(subscription).offer(List.of(first, second));
+        verify(subscription).offer(List.of(third));
+
+        // When
+        when(changeEventRepository.findAfter(third.position(), 2)).thenReturn(List.of());
+        publisher.publish();
+
+        // Then
+        verify(changeEventRepository).findAfter(third.position(), 2);
+        verifyNoMoreInteractions(subscription);
+    }
+
+
+    static StoredChangeEvent stored(long txid, long eventId) {
+        return new StoredChangeEvent(new FeedPosition(txid, eventId),
+                ChangeEvent.newBuilder().setEventId(eventId).build());
+    }
+}
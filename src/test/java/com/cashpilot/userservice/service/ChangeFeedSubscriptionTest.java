@@ -0,0 +1,133 @@
+package com.cashpilot.userservice.service;
+
+import com.cashpilot.changefeed.proto.ChangeEvent;
+import com.cashpilot.userservice.config.ChangeFeedProperties;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.FeedPosition;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository.StoredChangeEvent;
+import io.grpc.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.cashpilot.userservice.service.ChangeFeedPublisherTest.stored;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для ChangeFeedSubscription")
+class ChangeFeedSubscriptionTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    @Mock
+    private ChangeEventJdbcRepository changeEventRepository;
+    @Mock
+    private ChangeFeedPublisher publisher;
+
+    private final FakeServerCallStreamObserver<ChangeEvent> observer = new FakeServerCallStreamObserver<>();
+
+
+    @Test
+    @DisplayName("start: должен догнать историю после позиции клиента и перейти на живые события без дублей")
+    void start_shouldReplayFromClientPositionThenGoLive() {
+        // Given
+        FeedPosition resumeFrom = new FeedPosition(50, 4);
+        StoredChangeEvent first = stored(51, 6);
+        StoredChangeEvent second = stored(52, 5);
+        StoredChangeEvent third = stored(53, 7);
+        when(publisher.subscribe(any())).thenReturn(true);
+        when(changeEventRepository.findAfter(resumeFrom, BATCH_SIZE)).thenReturn(List.of(first, second));
+        ChangeFeedSubscription subscription = subscription(resumeFrom, 100);
+
+        // When
+        subscription.start();
+        observer.becomeReady();
+        subscription.offer(List.of(second, third));
+
+        // Then
+        assertThat(observer.values).containsExactly(first.event(), second.event(), third.event());
+        verify(changeEventRepository).findAfter(resumeFrom, BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("offer: медленный подписчик должен копить события, пока транспорт не готов")
+    void offer_shouldBufferWhileNotReady() {
+        // Given
+        StoredChangeEvent first = stored(51, 1);
+        StoredChangeEvent second = stored(52, 2);
+        when(publisher.subscribe(any())).thenReturn(true);
+        when(changeEventRepository.findAfter(FeedPosition.START, BATCH_SIZE)).thenReturn(List.of());
+        ChangeFeedSubscription subscription = subscription(FeedPosition.START, 100);
+        subscription.start();
+        observer.becomeReady();
+        observer.ready = false;
+
+        // When
+        subscription.offer(List.of(first, second));
+
+        // Then
+        assertThat(observer.values).isEmpty();
+
+        // When
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(first.event(), second.event());
+    }
+
+    @Test
+    @DisplayName("offer: при переполнении буфера должен сбросить его и догнать пропущенное из таблицы")
+    void offer_shouldReplayFromTable_whenBufferOverflows() {
+        // Given
+        StoredChangeEvent first = stored(51, 1);
+        StoredChangeEvent second = stored(52, 2);
+        StoredChangeEvent third = stored(53, 3);
+        when(publisher.subscribe(any())).thenReturn(true);
+        when(changeEventRepository.findAfter(FeedPosition.START, BATCH_SIZE))
+                .thenReturn(List.of(), List.of(first, second, third));
+        ChangeFeedSubscription subscription = subscription(FeedPosition.START, 2);
+        subscription.start();
+        observer.becomeReady();
+        observer.ready = false;
+
+        // When
+        subscription.offer(List.of(first));
+        subscription.offer(List.of(second, third));
+        observer.becomeReady();
+
+        // Then
+        assertThat(observer.values).containsExactly(first.event(), second.event(), third.event());
+        verify(changeEventRepository, times(2)).findAfter(FeedPosition.START, BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("start: должен ответить UNAVAILABLE, пока публикатор не готов")
+    void start_shouldFailUnavailable_whenPublisherNotReady() {
+        // Given
+        when(publisher.subscribe(any())).thenReturn(false);
+        ChangeFeedSubscription subscription = subscription(FeedPosition.START, 100);
+
+        // When
+        subscription.start();
+        observer.becomeReady();
+
+        // Then
+        assertThat(Status.fromThrowable(observer.error).getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+        assertThat(observer.values).isEmpty();
+        verifyNoInteractions(changeEventRepository);
+    }
+
+
+    private ChangeFeedSubscription subscription(FeedPosition after, int bufferSize) {
+        return new ChangeFeedSubscription(observer, changeEventRepository, publisher,
+                new ChangeFeedProperties(true, Duration.ofMillis(200), BATCH_SIZE, Duration.ofDays(7), bufferSize),
+                after);
+    }
+}
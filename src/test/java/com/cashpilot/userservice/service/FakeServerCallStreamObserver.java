@@ -0,0 +1,90 @@
+package com.cashpilot.userservice.service;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side stream observer for tests: records what was sent and lets the test switch
+ * transport readiness and cancel the call the way gRPC would.
+ */
+class FakeServerCallStreamObserver<T> extends ServerCallStreamObserver<T> {
+
+    final List<T> values = new ArrayList<>();
+    Throwable error;
+    boolean completed;
+    boolean ready = true;
+    // Сколько сообщений транспорт примет, прежде чем isReady() станет false
+    int sendsUntilNotReady = Integer.MAX_VALUE;
+    private boolean cancelled;
+    private Runnable onReadyHandler = () -> {
+    };
+    private Runnable onCancelHandler = () -> {
+    };
+
+    void becomeReady() {
+        ready = true;
+        onReadyHandler.run();
+    }
+
+    void cancel() {
+        cancelled = true;
+        ready = false;
+        onCancelHandler.run();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setOnCancelHandler(Runnable onCancelHandler) {
+        this.onCancelHandler = onCancelHandler;
+    }
+
+    @Override
+    public void setCompression(String compression) {
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+        this.onReadyHandler = onReadyHandler;
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {
+    }
+
+    @Override
+    public void request(int count) {
+    }
+
+    @Override
+    public void setMessageCompression(boolean enable) {
+    }
+
+    @Override
+    public void onNext(T value) {
+        values.add(value);
+        if (--sendsUntilNotReady == 0) {
+            ready = false;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+    }
+
+    @Override
+    public void onCompleted() {
+        completed = true;
+    }
+}
@@ -1,16 +1,30 @@
 package com.cashpilot.userservice.service;
 
+import com.cashpilot.changefeed.proto.ChangeType;
+import com.cashpilot.userservice.cache.AccountListCache;
+import com.cashpilot.userservice.cache.EncodedUserProfileCache;
+import com.cashpilot.userservice.cache.UserProfileCache;
+import com.cashpilot.userservice.config.CacheProperties;
 import com.cashpilot.userservice.config.SecurityUtil;
+import com.cashpilot.userservice.datasource.ReadYourWritesTracker;
 import com.cashpilot.userservice.entity.UserProfile;
 import com.cashpilot.userservice.enums.AppTheme;
 import com.cashpilot.userservice.exception.AlreadyExistException;
+import com.cashpilot.userservice.exception.ConstraintViolations;
+import com.cashpilot.userservice.exception.EtagMismatchException;
 import com.cashpilot.userservice.exception.NotFoundException;
 import com.cashpilot.userservice.exception.ValidationException;
 import com.cashpilot.userservice.grpc.*;
 import com.cashpilot.userservice.mapper.UserProfileMapper;
+import com.cashpilot.userservice.repository.ChangeEventJdbcRepository;
+import com.cashpilot.userservice.repository.UserProfileJdbcRepository;
 import com.cashpilot.userservice.repository.UserProfileRepository;
 import com.google.protobuf.Empty;
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.Timestamp;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,12 +32,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -35,6 +57,9 @@ class UserProfileServiceImplTest {
     @Mock
     private UserProfileRepository userProfileRepository;
 
+    @Mock
+    private UserProfileJdbcRepository userProfileJdbcRepository;
+
     @Mock
     private UserProfileMapper userProfileMapper;
 
@@ -42,7 +67,23 @@ class UserProfileServiceImplTest {
     private SecurityUtil securityUtil;
 
     @Mock
-    private ValidatorService validatorService;
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private ChangeEventJdbcRepository changeEventRepository;
+
+    private final CacheProperties cacheProperties = new CacheProperties(
+            new CacheProperties.Spec(true, 100, Duration.ofMinutes(1)),
+            new CacheProperties.Spec(true, 100, Duration.ofMinutes(1)));
+
+    @Spy
+    private UserProfileCache userProfileCache = new UserProfileCache(cacheProperties, new SimpleMeterRegistry());
+
+    @Spy
+    private EncodedUserProfileCache encodedUserProfileCache = new EncodedUserProfileCache(cacheProperties, new SimpleMeterRegistry());
+
+    @Spy
+    private AccountListCache accountListCache = new AccountListCache(cacheProperties, new SimpleMeterRegistry());
 
     @Mock
     private StreamObserver<UserProfileResponse> userProfileResponseObserver;
@@ -50,6 +91,9 @@ class UserProfileServiceImplTest {
     @Mock
     private StreamObserver<Empty> emptyResponseObserver;
 
+    @Mock
+    private StreamObserver<BatchGetUserProfilesResponse> batchGetUserProfilesResponseObserver;
+
     @InjectMocks
     private UserProfileServiceImpl userProfileService;
 
@@ -91,12 +135,8 @@ class UserProfileServiceImplTest {
                 .setTheme("DARK")
                 .build();
 
-        doNothing().when(validatorService).validate(any());
-
-        when(userProfileRepository.existsById(TEST_USER_ID)).thenReturn(false);
-
         when(userProfileMapper.toEntity(request)).thenReturn(testUserProfile);
-        when(userProfileRepository.save(testUserProfile)).thenReturn(testUserProfile);
+        when(userProfileRepository.saveAndFlush(testUserProfile)).thenReturn(testUserProfile);
         when(userProfileMapper.toResponse(testUserProfile)).thenReturn(testUserProfileResponse);
 
         ArgumentCaptor<UserProfileResponse> responseCaptor = ArgumentCaptor.forClass(UserProfileResponse.class);
@@ -105,8 +145,8 @@ class UserProfileServiceImplTest {
         userProfileService.createUserProfile(request, userProfileResponseObserver);
 
         // Then
-        verify(validatorService).validate(any());
-        verify(userProfileRepository).save(testUserProfile);
+        verify(userProfileRepository, never()).existsById(any());
+        verify(userProfileRepository).saveAndFlush(testUserProfile);
         verify(userProfileResponseObserver).onNext(responseCaptor.capture());
 
         assertThat(responseCaptor.getValue().getUserId()).isEqualTo(TEST_USER_ID);
@@ -121,48 +161,32 @@ class UserProfileServiceImplTest {
     void createUserProfile_shouldThrowAlreadyExistException_whenProfileExists() {
         // Given
         CreateUserProfileRequest request = CreateUserProfileRequest.getDefaultInstance();
-        doNothing().when(validatorService).validate(any());
-        when(userProfileRepository.existsById(TEST_USER_ID)).thenReturn(true);
+        when(userProfileMapper.toEntity(request)).thenReturn(testUserProfile);
+        when(userProfileRepository.saveAndFlush(testUserProfile)).thenThrow(new DataIntegrityViolationException(
+                "duplicate key",
+                new ConstraintViolationException("duplicate key", new SQLException(), ConstraintViolations.USER_PROFILES_PKEY)));
 
         // When & Then
         assertThrows(AlreadyExistException.class, () -> {
             userProfileService.createUserProfile(request, userProfileResponseObserver);
         });
-        verify(userProfileRepository, never()).save(any());
         verify(userProfileResponseObserver, never()).onNext(any());
     }
 
-    @Test
-    @DisplayName("createUserProfile: должен выбросить ValidationException, если валидация не пройдена")
-    void createUserProfile_shouldThrowValidationException_whenValidationFails() {
-        // Given
-        CreateUserProfileRequest request = CreateUserProfileRequest.getDefaultInstance();
-        doThrow(new ValidationException("Validation failed"))
-                .when(validatorService).validate(any());
-
-        // When & Then
-        assertThrows(ValidationException.class, () -> {
-            userProfileService.createUserProfile(request, userProfileResponseObserver);
-        });
-        verify(userProfileRepository, never()).existsById(any());
-        verify(userProfileRepository, never()).save(any());
-    }
-
-
     @Test
     @DisplayName("getUserProfile: должен успешно вернуть профиль, если он найден")
     void getUserProfile_shouldSucceed_whenProfileFound() {
         // Given
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
-        when(userProfileMapper.toResponse(testUserProfile)).thenReturn(testUserProfileResponse);
+        when(userProfileJdbcRepository.findResponseById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfileResponse));
 
         ArgumentCaptor<UserProfileResponse> responseCaptor = ArgumentCaptor.forClass(UserProfileResponse.class);
 
         // When
-        userProfileService.getUserProfile(Empty.getDefaultInstance(), userProfileResponseObserver);
+        userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
 
         // Then
-        verify(userProfileRepository).findById(TEST_USER_ID);
+        verify(userProfileJdbcRepository).findResponseById(TEST_USER_ID);
+        verifyNoInteractions(userProfileRepository, userProfileMapper);
         verify(userProfileResponseObserver).onNext(responseCaptor.capture());
         verify(userProfileResponseObserver).onCompleted();
 
@@ -170,105 +194,292 @@ class UserProfileServiceImplTest {
         assertThat(responseCaptor.getValue().getDefaultCurrency()).isEqualTo("KZT");
     }
 
+    @Test
+    @DisplayName("getUserProfile: повторный запрос должен обслуживаться из кэша без обращения к БД")
+    void getUserProfile_shouldServeFromCache_onSecondCall() {
+        // Given
+        when(userProfileJdbcRepository.findResponseById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfileResponse));
+
+        // When
+        userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
+        userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
+
+        // Then
+        verify(userProfileJdbcRepository, times(1)).findResponseById(TEST_USER_ID);
+        verify(userProfileResponseObserver, times(2)).onNext(testUserProfileResponse);
+    }
+
+    @Test
+    @DisplayName("getUserProfile: должен ответить not_modified из кэша, если etag клиента актуален")
+    void getUserProfile_shouldReturnNotModified_whenEtagMatches() {
+        // Given
+        UserProfileResponse cached = testUserProfileResponse.toBuilder().setEtag("5").build();
+        when(userProfileJdbcRepository.findResponseById(TEST_USER_ID)).thenReturn(Optional.of(cached));
+        GetUserProfileRequest request = GetUserProfileRequest.newBuilder().setIfNoneMatch("5").build();
+
+        // When
+        userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
+        userProfileService.getUserProfile(request, userProfileResponseObserver);
+
+        // Then
+        verify(userProfileJdbcRepository, times(1)).findResponseById(TEST_USER_ID);
+        verify(userProfileResponseObserver).onNext(cached);
+        verify(userProfileResponseObserver).onNext(UserProfileResponse.newBuilder().setEtag("5").setNotModified(true).build());
+    }
+
+    @Test
+    @DisplayName("getUserProfileV2: должен кэшировать закодированный ответ и отдавать те же байты")
+    @SuppressWarnings("unchecked")
+    void getUserProfileV2_shouldServeEncodedBytesFromCache() throws Exception {
+        // Given
+        UserProfileResponseV2 profile = UserProfileResponseV2.newBuilder()
+                .setUserId(TEST_USER_ID)
+                .setDefaultCurrency("KZT")
+                .setCreatedAt(Timestamp.newBuilder().setSeconds(1_700_000_000L))
+                .setEtag("3")
+                .build();
+        when(userProfileJdbcRepository.findResponseV2ById(TEST_USER_ID)).thenReturn(Optional.of(profile));
+        StreamObserver<byte[]> bytesObserver = mock(StreamObserver.class);
+        ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.forClass(byte[].class);
+
+        // When
+        userProfileService.getUserProfileV2(GetUserProfileRequest.getDefaultInstance(), bytesObserver);
+        userProfileService.getUserProfileV2(GetUserProfileRequest.getDefaultInstance(), bytesObserver);
+
+        // Then
+        verify(userProfileJdbcRepository, times(1)).findResponseV2ById(TEST_USER_ID);
+        verify(bytesObserver, times(2)).onNext(bytesCaptor.capture());
+        assertThat(bytesCaptor.getAllValues().get(1)).isSameAs(bytesCaptor.getAllValues().get(0));
+        assertThat(UserProfileResponseV2.parseFrom(bytesCaptor.getValue())).isEqualTo(profile);
+    }
+
     @Test
     @DisplayName("getUserProfile: должен выбросить NotFoundException, если профиль не найден")
     void getUserProfile_shouldThrowNotFoundException_whenProfileNotFound() {
         // Given
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty());
+        when(userProfileJdbcRepository.findResponseById(TEST_USER_ID)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
-            userProfileService.getUserProfile(Empty.getDefaultInstance(), userProfileResponseObserver);
+            userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
         });
         verify(userProfileResponseObserver, never()).onNext(any());
     }
 
 
     @Test
-    @DisplayName("updateUserProfile: должен успешно обновить профиль")
-    void updateUserProfile_shouldSucceed_whenProfileExists() {
+    @DisplayName("batchGetUserProfiles: должен вернуть найденные профили одним запросом и отметить отсутствующие")
+    void batchGetUserProfiles_shouldResolveAllIdsWithSingleQuery() {
+        // Given
+        BatchGetUserProfilesRequest request = BatchGetUserProfilesRequest.newBuilder()
+                .addUserIds(TEST_USER_ID)
+                .addUserIds("missing-user")
+                .build();
+
+        when(userProfileJdbcRepository.findResponsesByIds(any())).thenReturn(List.of(testUserProfileResponse));
+
+        ArgumentCaptor<BatchGetUserProfilesResponse> responseCaptor = ArgumentCaptor.forClass(BatchGetUserProfilesResponse.class);
+
+        // When
+        userProfileService.batchGetUserProfiles(request, batchGetUserProfilesResponseObserver);
+
+        // Then
+        verify(userProfileJdbcRepository, times(1)).findResponsesByIds(any());
+        verifyNoInteractions(userProfileRepository);
+        verify(batchGetUserProfilesResponseObserver).onNext(responseCaptor.capture());
+        verify(batchGetUserProfilesResponseObserver).onCompleted();
+
+        List<UserProfileResult> results = responseCaptor.getValue().getResultsList();
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getProfile()).isEqualTo(testUserProfileResponse);
+        assertThat(results.get(1).getUserId()).isEqualTo("missing-user");
+        assertThat(results.get(1).getNotFound()).isTrue();
+    }
+
+    @Test
+    @DisplayName("updateUserProfile: должен записать только поля из update_mask, не загружая профиль")
+    void updateUserProfile_shouldWriteOnlyMaskedColumns() {
         // Given
         UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
-                .setDefaultCurrency("EUR")
                 .setLanguage("en")
+                .setSendNotificationToGmail(true)
+                .setUpdateMask(FieldMask.newBuilder().addPaths("language").addPaths("send_notification_to_gmail"))
                 .build();
+        UserProfileResponse updatedResponse = testUserProfileResponse.toBuilder().setLanguage("en").build();
 
-        UserProfile existingProfile = new UserProfile();
-        existingProfile.setUserId(TEST_USER_ID);
-        existingProfile.setDefaultCurrency("KZT");
-        existingProfile.setLanguage("ru");
+        when(userProfileJdbcRepository.updateColumns(TEST_USER_ID, Map.of("language", "en", "notify_on_budget_limit", true), null))
+                .thenReturn(Optional.of(updatedResponse));
 
-        doNothing().when(validatorService).validate(any());
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(existingProfile));
-        when(userProfileRepository.save(any(UserProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // When
+        userProfileService.updateUserProfile(request, userProfileResponseObserver);
 
-        UserProfileResponse updatedResponseDTO = UserProfileResponse.newBuilder()
-                .setUserId(TEST_USER_ID)
+        // Then
+        verify(userProfileRepository, never()).findById(any());
+        verify(changeEventRepository).recordUserProfileChange(TEST_USER_ID, ChangeType.UPDATED, updatedResponse);
+        verify(userProfileResponseObserver).onNext(updatedResponse);
+        verify(userProfileResponseObserver).onCompleted();
+    }
+
+    @Test
+    @DisplayName("updateUserProfile: без update_mask должен записать все поля")
+    @SuppressWarnings("unchecked")
+    void updateUserProfile_shouldWriteAllColumns_whenMaskIsUnset() {
+        // Given
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
                 .setDefaultCurrency("EUR")
+                .setTimezone("Asia/Almaty")
                 .setLanguage("en")
+                .setTheme("DARK")
                 .build();
 
-        when(userProfileMapper.toResponse(any(UserProfile.class))).thenReturn(updatedResponseDTO);
-
-        ArgumentCaptor<UserProfileResponse> responseCaptor = ArgumentCaptor.forClass(UserProfileResponse.class);
+        when(userProfileJdbcRepository.updateColumns(eq(TEST_USER_ID), any(), isNull())).thenReturn(Optional.of(testUserProfileResponse));
+        ArgumentCaptor<Map<String, Object>> columnsCaptor = ArgumentCaptor.forClass(Map.class);
 
         // When
         userProfileService.updateUserProfile(request, userProfileResponseObserver);
 
         // Then
-        verify(validatorService).validate(any());
-        verify(userProfileMapper).updateEntityFromRequest(request, existingProfile);
-        verify(userProfileRepository).save(existingProfile);
-        verify(userProfileResponseObserver).onNext(responseCaptor.capture());
-        verify(userProfileResponseObserver).onCompleted();
+        verify(userProfileJdbcRepository).updateColumns(eq(TEST_USER_ID), columnsCaptor.capture(), isNull());
+        assertThat(columnsCaptor.getValue()).containsOnlyKeys(
+                "default_currency", "balance_visibility", "timezone", "language", "theme",
+                "notify_on_budget_limit", "onboarding_completed");
+        assertThat(columnsCaptor.getValue()).containsEntry("balance_visibility", false);
+    }
+
+    @Test
+    @DisplayName("updateUserProfile: должен выбросить ValidationException для пустого строкового поля из маски")
+    void updateUserProfile_shouldThrowValidationException_whenMaskedStringIsEmpty() {
+        // Given
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
+                .setUpdateMask(FieldMask.newBuilder().addPaths("timezone"))
+                .build();
 
-        assertThat(responseCaptor.getValue().getDefaultCurrency()).isEqualTo("EUR");
-        assertThat(responseCaptor.getValue().getLanguage()).isEqualTo("en");
+        // When & Then
+        assertThrows(ValidationException.class, () -> {
+            userProfileService.updateUserProfile(request, userProfileResponseObserver);
+        });
+        verifyNoInteractions(userProfileJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("updateUserProfile: должен выбросить ValidationException для неизвестного поля в маске")
+    void updateUserProfile_shouldThrowValidationException_whenMaskHasUnknownField() {
+        // Given
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
+                .setUpdateMask(FieldMask.newBuilder().addPaths("user_id"))
+                .build();
+
+        // When & Then
+        assertThrows(ValidationException.class, () -> {
+            userProfileService.updateUserProfile(request, userProfileResponseObserver);
+        });
+        verifyNoInteractions(userProfileJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("updateUserProfile: должен обновить профиль в кэше")
+    void updateUserProfile_shouldRefreshCache() {
+        // Given
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
+                .setDefaultCurrency("EUR")
+                .setUpdateMask(FieldMask.newBuilder().addPaths("default_currency"))
+                .build();
+        UserProfileResponse updatedResponse = testUserProfileResponse.toBuilder().setDefaultCurrency("EUR").build();
+
+        when(userProfileJdbcRepository.updateColumns(TEST_USER_ID, Map.of("default_currency", "EUR"), null))
+                .thenReturn(Optional.of(updatedResponse));
+
+        // When
+        userProfileService.updateUserProfile(request, userProfileResponseObserver);
+        userProfileService.getUserProfile(GetUserProfileRequest.getDefaultInstance(), userProfileResponseObserver);
+
+        // Then
+        verify(userProfileJdbcRepository, never()).findResponseById(any());
+        verify(userProfileResponseObserver, times(2)).onNext(updatedResponse);
     }
 
     @Test
     @DisplayName("updateUserProfile: должен выбросить NotFoundException, если профиль для обновления не найден")
     void updateUserProfile_shouldThrowNotFoundException_whenProfileNotFound() {
         // Given
-        UpdateUserProfileRequest request = UpdateUserProfileRequest.getDefaultInstance();
-        doNothing().when(validatorService).validate(any());
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty());
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
+                .setOnboardingCompleted(true)
+                .setUpdateMask(FieldMask.newBuilder().addPaths("onboarding_completed"))
+                .build();
+        when(userProfileJdbcRepository.updateColumns(eq(TEST_USER_ID), any(), isNull())).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
             userProfileService.updateUserProfile(request, userProfileResponseObserver);
         });
-        verify(userProfileRepository, never()).save(any());
+        verify(userProfileResponseObserver, never()).onNext(any());
     }
 
 
     @Test
-    @DisplayName("deleteUserProfile: должен успешно удалить профиль")
+    @DisplayName("updateUserProfile: должен выбросить EtagMismatchException, если профиль изменился после чтения")
+    void updateUserProfile_shouldThrowEtagMismatchException_whenEtagIsStale() {
+        // Given
+        UpdateUserProfileRequest request = UpdateUserProfileRequest.newBuilder()
+                .setBalanceVisibility(true)
+                .setUpdateMask(FieldMask.newBuilder().addPaths("balance_visibility"))
+                .setIfMatch("4")
+                .build();
+        when(userProfileJdbcRepository.updateColumns(TEST_USER_ID, Map.of("balance_visibility", true), 4L))
+                .thenReturn(Optional.empty());
+        when(userProfileRepository.existsById(TEST_USER_ID)).thenReturn(true);
+
+        // When & Then
+        assertThrows(EtagMismatchException.class, () -> {
+            userProfileService.updateUserProfile(request, userProfileResponseObserver);
+        });
+        verifyNoInteractions(changeEventRepository);
+    }
+
+
+    @Test
+    @DisplayName("deleteUserProfile: должен удалить профиль одним запросом, без загрузки")
     void deleteUserProfile_shouldSucceed_whenProfileExists() {
         // Given
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.of(testUserProfile));
+        when(userProfileRepository.deleteByUserId(TEST_USER_ID)).thenReturn(1);
         ArgumentCaptor<Empty> responseCaptor = ArgumentCaptor.forClass(Empty.class);
 
         // When
-        userProfileService.deleteUserProfile(Empty.getDefaultInstance(), emptyResponseObserver);
+        userProfileService.deleteUserProfile(DeleteUserProfileRequest.getDefaultInstance(), emptyResponseObserver);
 
         // Then
-        verify(userProfileRepository).delete(testUserProfile);
+        verify(userProfileRepository, never()).findById(any());
+        verify(changeEventRepository).recordUserProfileChange(TEST_USER_ID, ChangeType.DELETED, null);
         verify(emptyResponseObserver).onNext(responseCaptor.capture());
         assertThat(responseCaptor.getValue()).isEqualTo(Empty.getDefaultInstance());
         verify(emptyResponseObserver).onCompleted();
     }
 
+    @Test
+    @DisplayName("deleteUserProfile: с if_match должен удалять только совпадающую версию")
+    void deleteUserProfile_shouldDeleteMatchingVersion_whenIfMatchIsSet() {
+        // Given
+        DeleteUserProfileRequest request = DeleteUserProfileRequest.newBuilder().setIfMatch("2").build();
+        when(userProfileRepository.deleteByUserIdAndVersion(TEST_USER_ID, 2L)).thenReturn(1);
+
+        // When
+        userProfileService.deleteUserProfile(request, emptyResponseObserver);
+
+        // Then
+        verify(userProfileRepository, never()).deleteByUserId(any());
+        verify(emptyResponseObserver).onCompleted();
+    }
+
     @Test
     @DisplayName("deleteUserProfile: должен выбросить NotFoundException, если профиль для удаления не найден")
     void deleteUserProfile_shouldThrowNotFoundException_whenProfileNotFound() {
         // Given
-        when(userProfileRepository.findById(TEST_USER_ID)).thenReturn(Optional.empty());
+        when(userProfileRepository.deleteByUserId(TEST_USER_ID)).thenReturn(0);
 
         // When & Then
         assertThrows(NotFoundException.class, () -> {
-            userProfileService.deleteUserProfile(Empty.getDefaultInstance(), emptyResponseObserver);
+            userProfileService.deleteUserProfile(DeleteUserProfileRequest.getDefaultInstance(), emptyResponseObserver);
         });
-        verify(userProfileRepository, never()).delete(any());
+        verify(emptyResponseObserver, never()).onNext(any());
     }
 }
\ No newline at end of file